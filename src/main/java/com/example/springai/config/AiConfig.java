@@ -1,13 +1,18 @@
 package com.example.springai.config;
 
+import com.example.springai.service.RoutingChatModel;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
 import org.springframework.ai.chat.memory.MessageWindowChatMemory;
 import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 @Configuration
 public class AiConfig {
@@ -20,6 +25,15 @@ public class AiConfig {
                 .build();
     }
 
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "app.ai.routing", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public RoutingChatModel routingChatModel(OpenAiChatModel openAiChatModel,
+                                             RoutingProperties routingProperties,
+                                             @Value("${spring.ai.openai.api-key:}") String apiKey) {
+        return new RoutingChatModel(openAiChatModel, routingProperties, apiKey);
+    }
+
     @Bean
     @ConditionalOnBean(EmbeddingModel.class)
     public SimpleVectorStore simpleVectorStore(EmbeddingModel embeddingModel) {
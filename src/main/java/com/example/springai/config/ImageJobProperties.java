@@ -0,0 +1,27 @@
+package com.example.springai.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for asynchronous image generation jobs.
+ *
+ * @param storeDir      where finished images are written; {@code spring-ai-images} under the system temp dir when blank
+ * @param workers       number of generations running at the same time
+ * @param queueCapacity jobs allowed to wait for a worker before submissions are rejected
+ * @param retainedJobs  finished jobs kept for polling and deduplication; the oldest are dropped with their files
+ * @param downloadConnectTimeout connect timeout when the provider returns an image URL instead of data
+ * @param downloadReadTimeout    longest wait for the next bytes of that download before the job fails
+ */
+@ConfigurationProperties(prefix = "app.ai.image")
+public record ImageJobProperties(
+        String storeDir,
+        @DefaultValue("2") int workers,
+        @DefaultValue("100") int queueCapacity,
+        @DefaultValue("500") int retainedJobs,
+        @DefaultValue("10s") Duration downloadConnectTimeout,
+        @DefaultValue("60s") Duration downloadReadTimeout
+) {
+}
@@ -0,0 +1,27 @@
+package com.example.springai.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for batch moderation and the in-memory verdict cache.
+ *
+ * @param batchMaxItems    largest accepted batch
+ * @param maxInputChars    character budget of one provider batch request; a longer text is sent on its own
+ * @param providerBatchItems texts packed into one provider batch request
+ * @param parallelism      provider calls in flight at the same time across all batches
+ * @param cacheMaxEntries  verdicts kept; the least recently used are dropped first
+ * @param cacheTtl         how long a verdict is reused before the text is moderated again
+ */
+@ConfigurationProperties(prefix = "app.ai.moderation")
+public record ModerationProperties(
+        @DefaultValue("256") int batchMaxItems,
+        @DefaultValue("10000") int maxInputChars,
+        @DefaultValue("32") int providerBatchItems,
+        @DefaultValue("8") int parallelism,
+        @DefaultValue("10000") int cacheMaxEntries,
+        @DefaultValue("1h") Duration cacheTtl
+) {
+}
@@ -0,0 +1,53 @@
+package com.example.springai.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for latency-aware routing of chat calls across several models or endpoints.
+ *
+ * @param enabled            whether chat clients go through the router
+ * @param routes             candidate backends; when empty the configured chat model is the only route
+ * @param shortPromptChars   prompts up to this length prefer routes marked {@code cheap}
+ * @param initialHedgeDelay  hedge delay used until a route has enough latency samples for a p95
+ * @param minHedgeDelay      lower bound for the p95-based hedge delay
+ * @param maxAttempts        provider calls allowed per request, counting hedges and fail-overs
+ * @param retryBackoff       pause before a call is retried on the route that just failed; also the first
+ *                           backoff step when a tool prompt's completion request is retried
+ * @param maxHedgeRatio      largest share of calls that may be hedged; {@code 0} turns hedging off
+ * @param ewmaAlpha          weight of the newest sample in the latency and error averages
+ * @param errorPenalty       how strongly the error average inflates a route's latency score
+ * @param failureThreshold   consecutive failures that open a route's circuit breaker
+ * @param openDuration       how long an open breaker rejects calls before one trial call is let through
+ * @param maxConcurrentCalls size of the pool running routed calls and hedges
+ */
+@ConfigurationProperties(prefix = "app.ai.routing")
+public record RoutingProperties(
+        @DefaultValue("true") boolean enabled,
+        List<Route> routes,
+        @DefaultValue("400") int shortPromptChars,
+        @DefaultValue("2s") Duration initialHedgeDelay,
+        @DefaultValue("250ms") Duration minHedgeDelay,
+        @DefaultValue("2") int maxAttempts,
+        @DefaultValue("1s") Duration retryBackoff,
+        @DefaultValue("0.1") double maxHedgeRatio,
+        @DefaultValue("0.2") double ewmaAlpha,
+        @DefaultValue("4.0") double errorPenalty,
+        @DefaultValue("5") int failureThreshold,
+        @DefaultValue("30s") Duration openDuration,
+        @DefaultValue("64") int maxConcurrentCalls
+) {
+
+    /**
+     * @param name    label used in metrics
+     * @param model   model id sent to the provider
+     * @param baseUrl OpenAI-compatible endpoint; the default endpoint when blank
+     * @param apiKey  key for {@code baseUrl}; the default key when blank
+     * @param cheap   whether the route is preferred for short prompts
+     */
+    public record Route(String name, String model, String baseUrl, String apiKey, boolean cheap) {
+    }
+}
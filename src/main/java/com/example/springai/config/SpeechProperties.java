@@ -0,0 +1,22 @@
+package com.example.springai.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings for streamed text-to-speech and the on-disk cache of synthesized audio.
+ *
+ * @param cacheEnabled    whether finished syntheses are kept on disk and replayed
+ * @param cacheDir        cache directory; {@code spring-ai-speech-cache} under the system temp dir when blank
+ * @param cacheMaxSize    total size after which the least recently served files are evicted
+ * @param segmentMaxChars upper bound for one provider call when long text is split by sentences
+ */
+@ConfigurationProperties(prefix = "app.ai.speech")
+public record SpeechProperties(
+        @DefaultValue("true") boolean cacheEnabled,
+        String cacheDir,
+        @DefaultValue("512MB") DataSize cacheMaxSize,
+        @DefaultValue("1000") int segmentMaxChars
+) {
+}
@@ -0,0 +1,29 @@
+package com.example.springai.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for resumable SSE chat streams.
+ *
+ * @param coalesceInterval  longest time a token delta waits before it is flushed as a frame
+ * @param coalesceMaxChars  pending text size that triggers an immediate flush
+ * @param heartbeatInterval gap between heartbeat comments on an open connection
+ * @param replayFrames      frames kept per stream for clients reconnecting with {@code Last-Event-ID}
+ * @param retention         how long a finished stream stays resumable
+ * @param maxLifetime       longest a generation may run before it is cancelled and ends with an error event
+ * @param maxLiveStreams    generations running at the same time; new streams are refused beyond it
+ */
+@ConfigurationProperties(prefix = "app.ai.stream")
+public record StreamProperties(
+        @DefaultValue("50ms") Duration coalesceInterval,
+        @DefaultValue("256") int coalesceMaxChars,
+        @DefaultValue("15s") Duration heartbeatInterval,
+        @DefaultValue("1024") int replayFrames,
+        @DefaultValue("5m") Duration retention,
+        @DefaultValue("10m") Duration maxLifetime,
+        @DefaultValue("256") int maxLiveStreams
+) {
+}
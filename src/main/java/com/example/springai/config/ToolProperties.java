@@ -0,0 +1,25 @@
+package com.example.springai.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the tool-calling loop behind {@code /api/chat/tool}.
+ *
+ * @param defaultTimeout  timeout for tools without their own {@code @ToolPolicy} timeout, counted from when the call starts running
+ * @param queueTimeout    longest a call may wait for a free worker before it fails without running
+ * @param parallelism     tool calls running at the same time across all requests
+ * @param cacheMaxEntries results kept for cacheable tools
+ * @param cacheTtl        how long a cached tool result is reused
+ */
+@ConfigurationProperties(prefix = "app.ai.tools")
+public record ToolProperties(
+        @DefaultValue("10s") Duration defaultTimeout,
+        @DefaultValue("30s") Duration queueTimeout,
+        @DefaultValue("8") int parallelism,
+        @DefaultValue("1000") int cacheMaxEntries,
+        @DefaultValue("10m") Duration cacheTtl
+) {
+}
@@ -0,0 +1,27 @@
+package com.example.springai.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings for disk-spooled, optionally chunked audio transcription.
+ *
+ * @param spoolDir            directory for spooled uploads and chunk files; system temp dir when blank
+ * @param chunkDuration       target length of one chunk when splitting is requested
+ * @param silenceSearchWindow how far before each target boundary to look for the quietest cut point
+ * @param parallelism         number of chunks transcribed concurrently across all requests
+ * @param maxFileSize         largest file sent to the provider in one request; bigger uploads must be
+ *                            splittable PCM, and chunks are shortened so each stays under this size
+ */
+@ConfigurationProperties(prefix = "app.ai.transcription")
+public record TranscriptionProperties(
+        String spoolDir,
+        @DefaultValue("5m") Duration chunkDuration,
+        @DefaultValue("3s") Duration silenceSearchWindow,
+        @DefaultValue("4") int parallelism,
+        @DefaultValue("25MB") DataSize maxFileSize
+) {
+}
@@ -1,28 +1,28 @@
 package com.example.springai.controller;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import com.example.springai.service.ChunkedTranscriptionService;
+import com.example.springai.service.ImageJobService;
+import com.example.springai.service.ModerationService;
+import com.example.springai.service.SpeechSynthesisService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.ai.audio.transcription.TranscriptionModel;
 import org.springframework.ai.audio.tts.TextToSpeechModel;
-import org.springframework.ai.audio.tts.TextToSpeechPrompt;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.image.Image;
 import org.springframework.ai.image.ImageModel;
 import org.springframework.ai.image.ImagePrompt;
-import org.springframework.ai.moderation.Categories;
-import org.springframework.ai.moderation.CategoryScores;
-import org.springframework.ai.moderation.Moderation;
 import org.springframework.ai.moderation.ModerationModel;
-import org.springframework.ai.moderation.ModerationPrompt;
-import org.springframework.ai.moderation.ModerationResult;
 import org.springframework.ai.openai.OpenAiAudioSpeechOptions;
 import org.springframework.ai.openai.OpenAiAudioTranscriptionOptions;
 import org.springframework.ai.openai.OpenAiImageOptions;
@@ -30,13 +30,17 @@ import org.springframework.ai.openai.api.OpenAiAudioApi;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.beans.factory.ObjectProvider;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -44,6 +48,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.server.ResponseStatusException;
 
 @RestController
@@ -57,6 +63,11 @@ public class AiModelController {
     private final ModerationModel moderationModel;
     private final TextToSpeechModel textToSpeechModel;
     private final TranscriptionModel transcriptionModel;
+    private final ChunkedTranscriptionService transcriptionService;
+    private final SpeechSynthesisService speechService;
+    private final ImageJobService imageJobService;
+    private final ModerationService moderationService;
+    private final String defaultSpeechModel;
 
     public AiModelController(ChatClient.Builder chatClientBuilder,
                              ObjectProvider<EmbeddingModel> embeddingModelProvider,
@@ -64,7 +75,12 @@ public class AiModelController {
                              ObjectProvider<ImageModel> imageModelProvider,
                              ObjectProvider<ModerationModel> moderationModelProvider,
                              ObjectProvider<TextToSpeechModel> textToSpeechModelProvider,
-                             ObjectProvider<TranscriptionModel> transcriptionModelProvider) {
+                             ObjectProvider<TranscriptionModel> transcriptionModelProvider,
+                             ChunkedTranscriptionService transcriptionService,
+                             SpeechSynthesisService speechService,
+                             ImageJobService imageJobService,
+                             ModerationService moderationService,
+                             @Value("${spring.ai.openai.audio.speech.options.model:}") String defaultSpeechModel) {
         this.chatClient = chatClientBuilder.build();
         this.embeddingModel = embeddingModelProvider.getIfAvailable();
         this.vectorStore = vectorStoreProvider.getIfAvailable();
@@ -72,6 +88,11 @@ public class AiModelController {
         this.moderationModel = moderationModelProvider.getIfAvailable();
         this.textToSpeechModel = textToSpeechModelProvider.getIfAvailable();
         this.transcriptionModel = transcriptionModelProvider.getIfAvailable();
+        this.transcriptionService = transcriptionService;
+        this.speechService = speechService;
+        this.imageJobService = imageJobService;
+        this.moderationService = moderationService;
+        this.defaultSpeechModel = defaultSpeechModel;
     }
 
     @GetMapping("/features")
@@ -201,48 +222,103 @@ public class AiModelController {
         ImageModel model = requireFeature(this.imageModel, "Image");
         String prompt = requireText(request == null ? null : request.prompt(), "prompt");
 
-        OpenAiImageOptions.Builder optionsBuilder = OpenAiImageOptions.builder();
-        if (request != null && StringUtils.hasText(request.model())) {
-            optionsBuilder.model(request.model().trim());
-        }
-        if (request != null && StringUtils.hasText(request.quality())) {
-            optionsBuilder.quality(request.quality().trim());
-        }
-        if (request != null && StringUtils.hasText(request.style())) {
-            optionsBuilder.style(request.style().trim());
-        }
-
-        Image image = model.call(new ImagePrompt(prompt, optionsBuilder.build()))
+        Image image = model.call(new ImagePrompt(prompt, imageOptions(
+                        request.model(), request.quality(), request.style())))
                 .getResult()
                 .getOutput();
 
         return new ImageResult(prompt, image.getUrl(), image.getB64Json());
     }
 
+    @PostMapping("/image/jobs")
+    public ResponseEntity<ImageJobService.JobStatus> submitImageJob(@RequestBody ImageJobRequest request) {
+        ImageModel model = requireFeature(this.imageModel, "Image");
+        String prompt = requireText(request == null ? null : request.prompt(), "prompt");
+        int priority = request.priority() == null ? 0 : request.priority();
+
+        ImageJobService.JobStatus status = this.imageJobService.submit(
+                model,
+                prompt,
+                imageOptions(request.model(), request.quality(), request.style()),
+                priority
+        );
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+    }
+
+    @GetMapping("/image/jobs/{jobId}")
+    public ImageJobService.JobStatus imageJobStatus(@PathVariable String jobId) {
+        ImageJobService.JobStatus status = this.imageJobService.status(jobId);
+        if (status == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "image job not found");
+        }
+        return status;
+    }
+
+    @GetMapping(value = "/image/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter imageJobEvents(@PathVariable String jobId) {
+        SseEmitter emitter = this.imageJobService.subscribe(jobId);
+        if (emitter == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "image job not found");
+        }
+        return emitter;
+    }
+
+    @GetMapping("/image/jobs/{jobId}/result")
+    public ResponseEntity<Resource> imageJobResult(@PathVariable String jobId) {
+        Path file = this.imageJobService.result(jobId);
+        if (file == null) {
+            if (this.imageJobService.status(jobId) == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "image job not found");
+            }
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "image is not ready yet");
+        }
+
+        String filename = file.getFileName().toString();
+        return ResponseEntity.ok()
+                .contentType(MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
+                .body(new FileSystemResource(file));
+    }
+
     @PostMapping("/moderation")
     public ModerationPayload moderate(@RequestBody TextRequest request) {
         ModerationModel model = requireFeature(this.moderationModel, "Moderation");
         String text = requireText(request == null ? null : request.text(), "text");
 
-        Moderation moderation = model.call(new ModerationPrompt(text)).getResult().getOutput();
-        ModerationResult moderationResult = moderation.getResults().isEmpty()
-                ? null
-                : moderation.getResults().get(0);
+        return toModerationPayload(text, this.moderationService.moderate(model, text));
+    }
+
+    @PostMapping("/moderation/batch")
+    public ModerationBatchResult moderateBatch(@RequestBody ModerationBatchRequest request) {
+        requireFeature(this.moderationModel, "Moderation");
+        List<String> texts = request == null || request.texts() == null ? List.of() : request.texts();
+
+        if (texts.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "texts list is required");
+        }
 
-        if (moderationResult == null) {
-            return new ModerationPayload(text, false, Map.of(), Map.of());
+        List<String> trimmed = texts.stream()
+                .map(text -> text == null ? null : text.trim())
+                .toList();
+        ModerationService.BatchVerdicts batch = this.moderationService.moderateBatch(trimmed);
+
+        List<ModerationPayload> results = new ArrayList<>(trimmed.size());
+        for (int i = 0; i < trimmed.size(); i++) {
+            results.add(toModerationPayload(trimmed.get(i), batch.verdicts().get(i)));
         }
 
-        return new ModerationPayload(
-                text,
-                moderationResult.isFlagged(),
-                toCategoryMap(moderationResult.getCategories()),
-                toScoreMap(moderationResult.getCategoryScores())
+        return new ModerationBatchResult(
+                results.size(),
+                (int) results.stream().filter(ModerationPayload::flagged).count(),
+                batch.cacheHits(),
+                batch.providerCalls(),
+                results
         );
     }
 
     @PostMapping(value = "/audio/speech", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public ResponseEntity<byte[]> textToSpeech(@RequestBody SpeechRequest request) {
+    public ResponseEntity<StreamingResponseBody> textToSpeech(@RequestBody SpeechRequest request,
+                                                              HttpServletRequest servletRequest) {
         TextToSpeechModel model = requireFeature(this.textToSpeechModel, "Text-to-speech");
         String text = requireText(request == null ? null : request.text(), "text");
 
@@ -253,31 +329,47 @@ public class AiModelController {
         OpenAiAudioSpeechOptions.Builder optionsBuilder = OpenAiAudioSpeechOptions.builder()
                 .responseFormat(format);
 
+        String modelName = this.defaultSpeechModel;
+        String voice = null;
+        Double speed = null;
+
         if (request != null && StringUtils.hasText(request.model())) {
-            optionsBuilder.model(request.model().trim());
+            modelName = request.model().trim();
+            optionsBuilder.model(modelName);
         }
         if (request != null && StringUtils.hasText(request.voice())) {
-            optionsBuilder.voice(request.voice().trim());
+            voice = request.voice().trim();
+            optionsBuilder.voice(voice);
         }
         if (request != null && request.speed() != null) {
-            optionsBuilder.speed(request.speed());
+            speed = request.speed();
+            optionsBuilder.speed(speed);
         }
 
-        byte[] audio = model.call(new TextToSpeechPrompt(text, optionsBuilder.build()))
-                .getResult()
-                .getOutput();
-
         String extension = format.getValue();
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .contentType(resolveAudioMediaType(format))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"speech." + extension + "\"")
-                .body(audio);
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"speech." + extension + "\"");
+
+        String cacheKey = this.speechService.cacheKey(text, modelName, voice, format, speed);
+        Path cached = this.speechService.findCached(cacheKey, format);
+        if (cached != null) {
+            long length = cached.toFile().length();
+            response.contentLength(length);
+            if (this.speechService.trySendfile(servletRequest, cached, length)) {
+                return response.build();
+            }
+            return response.body(outputStream -> Files.copy(cached, outputStream));
+        }
+
+        return response.body(this.speechService.stream(model, text, optionsBuilder.build(), format, cacheKey));
     }
 
     @PostMapping(value = "/audio/transcription", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public TranscriptionPayload transcribe(@RequestPart("file") MultipartFile file,
                                            @RequestParam(required = false) String language,
-                                           @RequestParam(required = false) String prompt) {
+                                           @RequestParam(required = false) String prompt,
+                                           @RequestParam(defaultValue = "false") boolean split) {
         TranscriptionModel model = requireFeature(this.transcriptionModel, "Transcription");
 
         if (file == null || file.isEmpty()) {
@@ -288,32 +380,29 @@ public class AiModelController {
                 ? file.getOriginalFilename().trim()
                 : "audio.webm";
 
-        try {
-            ByteArrayResource resource = new ByteArrayResource(file.getBytes()) {
-                @Override
-                public String getFilename() {
-                    return originalFilename;
-                }
-            };
-
-            OpenAiAudioTranscriptionOptions.Builder optionsBuilder = OpenAiAudioTranscriptionOptions.builder();
-            boolean hasCustomOptions = false;
-
-            if (StringUtils.hasText(language)) {
-                optionsBuilder.language(language.trim());
-                hasCustomOptions = true;
-            }
+        OpenAiAudioTranscriptionOptions.Builder optionsBuilder = OpenAiAudioTranscriptionOptions.builder();
+        boolean hasCustomOptions = false;
 
-            if (StringUtils.hasText(prompt)) {
-                optionsBuilder.prompt(prompt.trim());
-                hasCustomOptions = true;
-            }
+        if (StringUtils.hasText(language)) {
+            optionsBuilder.language(language.trim());
+            hasCustomOptions = true;
+        }
+
+        if (StringUtils.hasText(prompt)) {
+            optionsBuilder.prompt(prompt.trim());
+            hasCustomOptions = true;
+        }
 
-            String transcript = hasCustomOptions
-                    ? model.transcribe(resource, optionsBuilder.build())
-                    : model.transcribe(resource);
+        try {
+            ChunkedTranscriptionService.Transcript transcript = this.transcriptionService.transcribe(
+                    model,
+                    file,
+                    originalFilename,
+                    hasCustomOptions ? optionsBuilder.build() : null,
+                    split
+            );
 
-            return new TranscriptionPayload(originalFilename, transcript);
+            return new TranscriptionPayload(originalFilename, transcript.text(), transcript.chunks());
         }
         catch (IOException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "audio file cannot be read", ex);
@@ -338,6 +427,20 @@ public class AiModelController {
         return preview;
     }
 
+    private OpenAiImageOptions imageOptions(String model, String quality, String style) {
+        OpenAiImageOptions.Builder optionsBuilder = OpenAiImageOptions.builder();
+        if (StringUtils.hasText(model)) {
+            optionsBuilder.model(model.trim());
+        }
+        if (StringUtils.hasText(quality)) {
+            optionsBuilder.quality(quality.trim());
+        }
+        if (StringUtils.hasText(style)) {
+            optionsBuilder.style(style.trim());
+        }
+        return optionsBuilder.build();
+    }
+
     private OpenAiAudioApi.SpeechRequest.AudioResponseFormat parseAudioFormat(String format) {
         if (!StringUtils.hasText(format)) {
             return OpenAiAudioApi.SpeechRequest.AudioResponseFormat.MP3;
@@ -361,34 +464,8 @@ public class AiModelController {
         };
     }
 
-    private Map<String, Boolean> toCategoryMap(Categories categories) {
-        if (categories == null) {
-            return Map.of();
-        }
-
-        Map<String, Boolean> map = new HashMap<>();
-        map.put("sexual", categories.isSexual());
-        map.put("hate", categories.isHate());
-        map.put("harassment", categories.isHarassment());
-        map.put("selfHarm", categories.isSelfHarm());
-        map.put("violence", categories.isViolence());
-        map.put("pii", categories.isPii());
-        return map;
-    }
-
-    private Map<String, Double> toScoreMap(CategoryScores scores) {
-        if (scores == null) {
-            return Map.of();
-        }
-
-        Map<String, Double> map = new HashMap<>();
-        map.put("sexual", scores.getSexual());
-        map.put("hate", scores.getHate());
-        map.put("harassment", scores.getHarassment());
-        map.put("selfHarm", scores.getSelfHarm());
-        map.put("violence", scores.getViolence());
-        map.put("pii", scores.getPii());
-        return map;
+    private ModerationPayload toModerationPayload(String text, ModerationService.Verdict verdict) {
+        return new ModerationPayload(text, verdict.flagged(), verdict.categories(), verdict.scores());
     }
 
     private <T> T requireFeature(T featureBean, String featureName) {
@@ -438,15 +515,28 @@ public class AiModelController {
     public record ImageResult(String prompt, String url, String b64Json) {
     }
 
+    public record ImageJobRequest(String prompt, String model, String quality, String style, Integer priority) {
+    }
+
     public record ModerationPayload(String text,
                                     boolean flagged,
                                     Map<String, Boolean> categories,
                                     Map<String, Double> scores) {
     }
 
+    public record ModerationBatchRequest(List<String> texts) {
+    }
+
+    public record ModerationBatchResult(int total,
+                                        int flagged,
+                                        int cacheHits,
+                                        int providerCalls,
+                                        List<ModerationPayload> results) {
+    }
+
     public record SpeechRequest(String text, String model, String voice, String format, Double speed) {
     }
 
-    public record TranscriptionPayload(String filename, String transcript) {
+    public record TranscriptionPayload(String filename, String transcript, int chunks) {
     }
 }
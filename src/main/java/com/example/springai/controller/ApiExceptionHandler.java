@@ -2,8 +2,10 @@ package com.example.springai.controller;
 
 import java.time.Instant;
 
+import com.example.springai.service.ModelUnavailableException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -68,6 +70,22 @@ public class ApiExceptionHandler {
         );
     }
 
+    @ExceptionHandler(ModelUnavailableException.class)
+    public ResponseEntity<ApiError> handleModelUnavailableException(ModelUnavailableException ex, HttpServletRequest request) {
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(
+                        new ApiError(
+                                "MODEL_UNAVAILABLE",
+                                "Barcha chat modellari vaqtincha ishlamayapti.",
+                                retryAfterSeconds + " soniyadan keyin qayta urinib ko'ring.",
+                                Instant.now(),
+                                request.getRequestURI()
+                        )
+                );
+    }
+
     @ExceptionHandler(WebClientResponseException.class)
     public ResponseEntity<ApiError> handleWebClientException(WebClientResponseException ex, HttpServletRequest request) {
         String message = safeMessage(ex.getResponseBodyAsString(), ex.getMessage());
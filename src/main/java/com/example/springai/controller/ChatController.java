@@ -2,35 +2,67 @@ package com.example.springai.controller;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
+import com.example.springai.service.ModelUnavailableException;
+import com.example.springai.service.ParallelToolCallingManager;
+import com.example.springai.service.ResumableStreamService;
+import com.example.springai.service.RoutingChatModel;
+import com.example.springai.service.StructuredStreamService;
 import com.example.springai.tool.DemoTools;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/api/chat")
 public class ChatController {
 
+    private static final String STUDY_PLAN_SYSTEM_PROMPT = """
+            You are a planner assistant.
+            Return concise output matching the JSON schema exactly.
+            """;
+
     private final ChatClient chatClient;
     private final ChatMemory chatMemory;
-    private final DemoTools demoTools;
+    private final ParallelToolCallingManager toolCallingManager;
+    private final StructuredStreamService structuredStreamService;
+    private final ResumableStreamService resumableStreamService;
+    private final ToolCallback[] demoToolCallbacks;
+    private final ObjectProvider<RoutingChatModel> routingChatModel;
 
-    public ChatController(ChatClient.Builder chatClientBuilder, ChatMemory chatMemory, DemoTools demoTools) {
+    public ChatController(ChatClient.Builder chatClientBuilder,
+                          ChatMemory chatMemory,
+                          DemoTools demoTools,
+                          ParallelToolCallingManager toolCallingManager,
+                          StructuredStreamService structuredStreamService,
+                          ResumableStreamService resumableStreamService,
+                          ObjectProvider<RoutingChatModel> routingChatModel) {
         this.chatClient = chatClientBuilder.build();
         this.chatMemory = chatMemory;
-        this.demoTools = demoTools;
+        this.toolCallingManager = toolCallingManager;
+        this.structuredStreamService = structuredStreamService;
+        this.resumableStreamService = resumableStreamService;
+        this.demoToolCallbacks = toolCallingManager.register(demoTools);
+        this.routingChatModel = routingChatModel;
     }
 
     @GetMapping
@@ -49,28 +81,79 @@ public class ChatController {
     }
 
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<String> streamChat(@RequestParam(defaultValue = "Spring AI stream javob bering.") String message) {
+    public Flux<ServerSentEvent<String>> streamChat(
+            @RequestParam(defaultValue = "Spring AI stream javob bering.") String message,
+            @RequestParam(required = false) String lastEventId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader) {
+        String resumeFrom = StringUtils.hasText(lastEventIdHeader) ? lastEventIdHeader : lastEventId;
+        if (StringUtils.hasText(resumeFrom)) {
+            Flux<ServerSentEvent<String>> resumed = this.resumableStreamService.resume(resumeFrom.trim());
+            if (resumed != null) {
+                return resumed;
+            }
+            return Flux.just(ServerSentEvent.<String>builder()
+                    .event(ResumableStreamService.ERROR_EVENT)
+                    .data("Stream muddati tugagan yoki topilmadi. Yangi so'rov yuboring.")
+                    .build());
+        }
+
         String prompt = normalizeMessage(message, "Salom");
-        return this.chatClient.prompt()
+        Flux<String> deltas = this.chatClient.prompt()
                 .user(prompt)
                 .stream()
-                .content()
-                .onErrorResume(ex -> Flux.just(streamFriendlyError(ex)));
+                .content();
+        Flux<ServerSentEvent<String>> started = this.resumableStreamService.start(deltas, this::streamFriendlyError);
+        if (started == null) {
+            return Flux.just(ServerSentEvent.<String>builder()
+                    .event(ResumableStreamService.ERROR_EVENT)
+                    .data("Xatolik: Hozir juda ko'p stream ochiq. Birozdan keyin qayta urinib ko'ring.")
+                    .build());
+        }
+        return started;
+    }
+
+    @GetMapping("/stream/metrics")
+    public ResumableStreamService.StreamSummary streamSummary() {
+        return this.resumableStreamService.summary();
+    }
+
+    @GetMapping("/stream/{streamId}/metrics")
+    public ResumableStreamService.StreamMetrics streamMetrics(@PathVariable String streamId) {
+        ResumableStreamService.StreamMetrics metrics = this.resumableStreamService.metrics(streamId);
+        if (metrics == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "stream not found");
+        }
+        return metrics;
     }
 
     @PostMapping("/structured")
     public StudyPlan structured(@RequestBody StructuredRequest request) {
         String topic = normalizeMessage(request == null ? null : request.topic(), "Spring AI");
         return this.chatClient.prompt()
-                .system("""
-                        You are a planner assistant.
-                        Return concise output matching the JSON schema exactly.
-                        """)
-                .user("Mavzu: " + topic + ". 4 ta qadamli study-plan tuzib ber.")
+                .system(STUDY_PLAN_SYSTEM_PROMPT)
+                .user(studyPlanPrompt(topic))
                 .call()
                 .entity(StudyPlan.class);
     }
 
+    @PostMapping(value = "/structured/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> structuredStream(@RequestBody StructuredRequest request) {
+        String topic = normalizeMessage(request == null ? null : request.topic(), "Spring AI");
+        BeanOutputConverter<StudyPlan> converter = new BeanOutputConverter<>(StudyPlan.class);
+
+        Flux<String> content = this.chatClient.prompt()
+                .system(STUDY_PLAN_SYSTEM_PROMPT + "\n" + converter.getFormat())
+                .user(studyPlanPrompt(topic))
+                .stream()
+                .content();
+
+        return this.structuredStreamService.stream(content, converter)
+                .map(event -> ServerSentEvent.<Object>builder(event).event(event.type()).build())
+                .onErrorResume(ex -> Flux.just(ServerSentEvent.<Object>builder(Map.of("message", streamFriendlyError(ex)))
+                        .event("error")
+                        .build()));
+    }
+
     @PostMapping("/memory/{conversationId}")
     public Map<String, String> chatWithMemory(@PathVariable String conversationId, @RequestBody ChatRequest request) {
         String prompt = normalizeMessage(request == null ? null : request.message(), "Salom");
@@ -105,7 +188,7 @@ public class ChatController {
 
         String response = this.chatClient.prompt()
                 .system("Agar savolga yordam bersa, tool'lardan foydalan.")
-                .tools(this.demoTools)
+                .toolCallbacks(this.demoToolCallbacks)
                 .user(prompt)
                 .call()
                 .content();
@@ -113,6 +196,20 @@ public class ChatController {
         return Map.of("message", prompt, "response", response);
     }
 
+    @GetMapping("/tool/metrics")
+    public Map<String, ParallelToolCallingManager.ToolStatsSnapshot> toolMetrics() {
+        return this.toolCallingManager.statistics();
+    }
+
+    @GetMapping("/routes")
+    public List<RoutingChatModel.RouteStatus> routes() {
+        RoutingChatModel router = this.routingChatModel.getIfAvailable();
+        if (router == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "chat routing is disabled");
+        }
+        return router.routeStatuses();
+    }
+
     private String chat(String message) {
         return this.chatClient.prompt()
                 .user(message)
@@ -120,6 +217,10 @@ public class ChatController {
                 .content();
     }
 
+    private String studyPlanPrompt(String topic) {
+        return "Mavzu: " + topic + ". 4 ta qadamli study-plan tuzib ber.";
+    }
+
     private String normalizeMessage(String message, String fallback) {
         return StringUtils.hasText(message) ? message.trim() : fallback;
     }
@@ -135,6 +236,14 @@ public class ChatController {
             return "Xatolik: API key noto'g'ri yoki ruxsat yo'q.";
         }
 
+        if (throwable instanceof TimeoutException) {
+            return "Xatolik: Javob juda uzoq davom etdi va to'xtatildi.";
+        }
+
+        if (throwable instanceof ModelUnavailableException) {
+            return "Xatolik: Barcha chat modellari vaqtincha ishlamayapti. Birozdan keyin qayta urinib ko'ring.";
+        }
+
         return "Xatolik: Stream chaqiruvda muammo bo'ldi. Keyinroq qayta urinib ko'ring.";
     }
 
@@ -0,0 +1,131 @@
+package com.example.springai.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import com.example.springai.config.TranscriptionProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.audio.transcription.AudioTranscriptionOptions;
+import org.springframework.ai.audio.transcription.TranscriptionModel;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Transcribes uploads without holding them on the heap: the multipart body is spooled to
+ * disk, optionally split into PCM chunks, and the chunks are transcribed on a bounded pool
+ * and stitched back together in playback order. The provider client reads each file it is
+ * given into memory, so anything sent in one request is capped at {@code max-file-size}.
+ */
+@Service
+public class ChunkedTranscriptionService {
+
+    private final TranscriptionProperties properties;
+    private final ExecutorService executor;
+
+    public ChunkedTranscriptionService(TranscriptionProperties properties) {
+        this.properties = properties;
+        this.executor = Executors.newFixedThreadPool(
+                Math.max(1, properties.parallelism()),
+                new CustomizableThreadFactory("transcription-")
+        );
+    }
+
+    public Transcript transcribe(TranscriptionModel model,
+                                 MultipartFile file,
+                                 String filename,
+                                 AudioTranscriptionOptions options,
+                                 boolean split) throws IOException {
+        long maxFileBytes = this.properties.maxFileSize().toBytes();
+        if (!split && file.getSize() > maxFileBytes) {
+            throw tooLarge(maxFileBytes);
+        }
+
+        Path workDir = createWorkDir();
+        try {
+            String extension = StringUtils.getFilenameExtension(filename);
+            Path spooled = workDir.resolve(StringUtils.hasText(extension) ? "upload." + extension : "upload");
+            file.transferTo(spooled);
+
+            List<Path> chunks = split
+                    ? WavChunker.split(spooled, this.properties.chunkDuration(), maxFileBytes,
+                    this.properties.silenceSearchWindow(), workDir, "chunk")
+                    : List.of();
+
+            if (chunks.isEmpty()) {
+                if (Files.size(spooled) > maxFileBytes) {
+                    throw tooLarge(maxFileBytes);
+                }
+                return new Transcript(call(model, namedResource(spooled, filename), options), 1);
+            }
+
+            String baseName = StringUtils.stripFilenameExtension(filename);
+            List<Future<String>> parts = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                Resource resource = namedResource(chunks.get(i), String.format("%s-part%03d.wav", baseName, i + 1));
+                parts.add(this.executor.submit(() -> call(model, resource, options)));
+            }
+
+            return new Transcript(join(parts), chunks.size());
+        }
+        finally {
+            FileSystemUtils.deleteRecursively(workDir);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private ResponseStatusException tooLarge(long maxFileBytes) {
+        return new ResponseStatusException(
+                HttpStatus.PAYLOAD_TOO_LARGE,
+                "audio larger than " + maxFileBytes / (1024 * 1024) + "MB must be uncompressed WAV/AIFF sent with split=true"
+        );
+    }
+
+    private String join(List<Future<String>> parts) {
+        return Futures.awaitAll(parts).stream()
+                .filter(StringUtils::hasText)
+                .map(String::trim)
+                .collect(Collectors.joining(" "));
+    }
+
+    private String call(TranscriptionModel model, Resource resource, AudioTranscriptionOptions options) {
+        return options == null ? model.transcribe(resource) : model.transcribe(resource, options);
+    }
+
+    private Path createWorkDir() throws IOException {
+        if (!StringUtils.hasText(this.properties.spoolDir())) {
+            return Files.createTempDirectory("transcription-");
+        }
+        Path spoolDir = Files.createDirectories(Path.of(this.properties.spoolDir().trim()));
+        return Files.createTempDirectory(spoolDir, "transcription-");
+    }
+
+    private Resource namedResource(Path path, String filename) {
+        return new FileSystemResource(path) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+
+    public record Transcript(String text, int chunks) {
+    }
+}
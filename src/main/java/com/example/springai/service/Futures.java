@@ -0,0 +1,42 @@
+package com.example.springai.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Waits for fan-out work submitted to the service executors.
+ */
+final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Returns the results in submission order. On the first failure the remaining futures are
+     * cancelled and the original runtime exception is rethrown, so provider errors still reach
+     * the API exception handler unwrapped.
+     */
+    static <T> List<T> awaitAll(List<Future<T>> futures) {
+        try {
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+        catch (ExecutionException ex) {
+            futures.forEach(future -> future.cancel(true));
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("parallel task failed", ex.getCause());
+        }
+        catch (InterruptedException ex) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for parallel tasks", ex);
+        }
+    }
+}
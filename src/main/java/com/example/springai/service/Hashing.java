@@ -0,0 +1,37 @@
+package com.example.springai.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content keys for the on-disk caches and job deduplication.
+ */
+final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * SHA-256 hex of the parts joined with NUL, so {@code ("ab", "c")} and {@code ("a", "bc")} differ.
+     * {@code null} parts are hashed as empty strings.
+     */
+    static String sha256Hex(String... parts) {
+        StringBuilder material = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                material.append('\u0000');
+            }
+            material.append(parts[i] == null ? "" : parts[i]);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(material.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
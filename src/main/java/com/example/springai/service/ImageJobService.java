@@ -0,0 +1,356 @@
+package com.example.springai.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.springai.config.ImageJobProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.image.Image;
+import org.springframework.ai.image.ImageModel;
+import org.springframework.ai.image.ImagePrompt;
+import org.springframework.ai.openai.OpenAiImageOptions;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Runs image generations on a bounded worker pool instead of request threads. Results are
+ * written straight to files, named by the format detected from their leading bytes, so large
+ * base64 payloads never reach API responses, and identical prompt/option combinations share one job.
+ */
+@Service
+public class ImageJobService {
+
+    private static final String RESULT_PATH = "/api/ai/image/jobs/%s/result";
+
+    private final ImageJobProperties properties;
+    private final Path storeDir;
+    private final ThreadPoolExecutor executor;
+    private final RestClient downloadClient;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, ImageJob> jobsById = new LinkedHashMap<>();
+    private final Map<String, ImageJob> jobsByKey = new HashMap<>();
+
+    public ImageJobService(ImageJobProperties properties) {
+        this.properties = properties;
+        this.storeDir = StringUtils.hasText(properties.storeDir())
+                ? Path.of(properties.storeDir().trim())
+                : Path.of(System.getProperty("java.io.tmpdir"), "spring-ai-images");
+
+        int workers = Math.max(1, properties.workers());
+        this.executor = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(),
+                new CustomizableThreadFactory("image-job-")
+        );
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(properties.downloadConnectTimeout());
+        requestFactory.setReadTimeout(properties.downloadReadTimeout());
+        this.downloadClient = RestClient.builder().requestFactory(requestFactory).build();
+    }
+
+    /**
+     * Queues a generation, or returns the existing job for the same prompt and options unless it failed.
+     * Higher priority values are picked up first; equal priorities run in submission order.
+     */
+    public synchronized JobStatus submit(ImageModel model, String prompt, OpenAiImageOptions options, int priority) {
+        String key = Hashing.sha256Hex(prompt, options.getModel(), options.getQuality(), options.getStyle());
+        ImageJob existing = this.jobsByKey.get(key);
+        if (existing != null && existing.status != Status.FAILED) {
+            return existing.snapshot();
+        }
+
+        if (this.executor.getQueue().size() >= this.properties.queueCapacity()) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "image job queue is full");
+        }
+
+        ImageJob job = new ImageJob(UUID.randomUUID().toString(), key, prompt);
+        this.jobsById.put(job.id, job);
+        this.jobsByKey.put(key, job);
+        pruneFinishedJobs();
+
+        ImagePrompt imagePrompt = new ImagePrompt(prompt, options);
+        this.executor.execute(new PrioritizedTask(priority, this.sequence.getAndIncrement(),
+                () -> run(job, model, imagePrompt)));
+        return job.snapshot();
+    }
+
+    public synchronized JobStatus status(String jobId) {
+        ImageJob job = this.jobsById.get(jobId);
+        return job == null ? null : job.snapshot();
+    }
+
+    /**
+     * Returns the image file of a finished job, or {@code null} when the job is unknown or not finished.
+     */
+    public synchronized Path result(String jobId) {
+        ImageJob job = this.jobsById.get(jobId);
+        return job == null || job.status != Status.SUCCEEDED ? null : job.file;
+    }
+
+    /**
+     * Emits the current status right away and every change after it; the stream completes
+     * once the job succeeds or fails.
+     */
+    public SseEmitter subscribe(String jobId) {
+        ImageJob job;
+        synchronized (this) {
+            job = this.jobsById.get(jobId);
+        }
+        if (job == null) {
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter();
+        emitter.onCompletion(() -> job.emitters.remove(emitter));
+        emitter.onTimeout(() -> job.emitters.remove(emitter));
+        job.emitters.add(emitter);
+
+        JobStatus current = job.snapshot();
+        send(job, emitter, current);
+        if (current.status().isTerminal()) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private void run(ImageJob job, ImageModel model, ImagePrompt prompt) {
+        job.update(Status.RUNNING, null, null);
+        publish(job);
+
+        try {
+            Image image = model.call(prompt).getResult().getOutput();
+            Path file = store(job.id, image);
+            job.update(Status.SUCCEEDED, file, null);
+        }
+        catch (Exception ex) {
+            job.update(Status.FAILED, null, shortMessage(ex.getMessage()));
+            synchronized (this) {
+                this.jobsByKey.remove(job.key, job);
+            }
+        }
+        publish(job);
+    }
+
+    private Path store(String jobId, Image image) throws IOException {
+        Files.createDirectories(this.storeDir);
+        Path download = this.storeDir.resolve(jobId + ".download");
+
+        try {
+            if (StringUtils.hasText(image.getB64Json())) {
+                Files.write(download, Base64.getMimeDecoder().decode(image.getB64Json()));
+            }
+            else if (StringUtils.hasText(image.getUrl())) {
+                download(URI.create(image.getUrl()), download);
+            }
+            else {
+                throw new IllegalStateException("provider returned neither image data nor url");
+            }
+
+            Path target = this.storeDir.resolve(jobId + "." + detectExtension(download));
+            return Files.move(download, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally {
+            Files.deleteIfExists(download);
+        }
+    }
+
+    private void download(URI uri, Path target) {
+        this.downloadClient.get()
+                .uri(uri)
+                .exchange((request, response) -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        throw new IllegalStateException("image download failed: HTTP " + response.getStatusCode().value());
+                    }
+                    try (InputStream input = response.getBody()) {
+                        Files.copy(input, target, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * File extension for the formats image models return, from the file's magic bytes.
+     */
+    private static String detectExtension(Path file) throws IOException {
+        byte[] head;
+        try (InputStream input = Files.newInputStream(file)) {
+            head = input.readNBytes(12);
+        }
+
+        if (startsWith(head, 0, new byte[] {(byte) 0x89, 'P', 'N', 'G'})) {
+            return "png";
+        }
+        if (startsWith(head, 0, new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF})) {
+            return "jpg";
+        }
+        if (startsWith(head, 0, "RIFF".getBytes(StandardCharsets.US_ASCII))
+                && startsWith(head, 8, "WEBP".getBytes(StandardCharsets.US_ASCII))) {
+            return "webp";
+        }
+        if (startsWith(head, 0, "GIF8".getBytes(StandardCharsets.US_ASCII))) {
+            return "gif";
+        }
+        return "bin";
+    }
+
+    private static boolean startsWith(byte[] data, int offset, byte[] prefix) {
+        return data.length >= offset + prefix.length
+                && Arrays.equals(data, offset, offset + prefix.length, prefix, 0, prefix.length);
+    }
+
+    private void publish(ImageJob job) {
+        JobStatus status = job.snapshot();
+        for (SseEmitter emitter : job.emitters) {
+            send(job, emitter, status);
+            if (status.status().isTerminal()) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private void send(ImageJob job, SseEmitter emitter, JobStatus status) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(status));
+        }
+        catch (IOException | IllegalStateException ex) {
+            job.emitters.remove(emitter);
+            emitter.completeWithError(ex);
+        }
+    }
+
+    /**
+     * Drops the oldest finished jobs, and their files, beyond the retention limit.
+     * Queued and running jobs are never dropped.
+     */
+    private void pruneFinishedJobs() {
+        Iterator<ImageJob> iterator = this.jobsById.values().iterator();
+        while (this.jobsById.size() > this.properties.retainedJobs() && iterator.hasNext()) {
+            ImageJob job = iterator.next();
+            if (!job.status.isTerminal()) {
+                continue;
+            }
+            iterator.remove();
+            this.jobsByKey.remove(job.key, job);
+            if (job.file != null) {
+                try {
+                    Files.deleteIfExists(job.file);
+                }
+                catch (IOException ignored) {
+                    // the file is overwritten or left behind; the job is gone either way
+                }
+            }
+        }
+    }
+
+    private String shortMessage(String message) {
+        if (!StringUtils.hasText(message)) {
+            return "Image generation failed";
+        }
+        return message.length() > 200 ? message.substring(0, 200) + "..." : message;
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED;
+
+        public boolean isTerminal() {
+            return this == SUCCEEDED || this == FAILED;
+        }
+    }
+
+    public record JobStatus(String id,
+                            Status status,
+                            String prompt,
+                            String resultUrl,
+                            String error,
+                            Instant createdAt,
+                            Instant updatedAt) {
+    }
+
+    private static final class ImageJob {
+
+        private final String id;
+        private final String key;
+        private final String prompt;
+        private final Instant createdAt = Instant.now();
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+        private volatile Status status = Status.QUEUED;
+        private volatile Path file;
+        private volatile String error;
+        private volatile Instant updatedAt = this.createdAt;
+
+        private ImageJob(String id, String key, String prompt) {
+            this.id = id;
+            this.key = key;
+            this.prompt = prompt;
+        }
+
+        private synchronized void update(Status status, Path file, String error) {
+            this.file = file;
+            this.error = error;
+            this.updatedAt = Instant.now();
+            this.status = status;
+        }
+
+        private synchronized JobStatus snapshot() {
+            return new JobStatus(
+                    this.id,
+                    this.status,
+                    this.prompt,
+                    this.status == Status.SUCCEEDED ? String.format(RESULT_PATH, this.id) : null,
+                    this.error,
+                    this.createdAt,
+                    this.updatedAt
+            );
+        }
+    }
+
+    private record PrioritizedTask(int priority, long sequence, Runnable task)
+            implements Runnable, Comparable<PrioritizedTask> {
+
+        @Override
+        public void run() {
+            this.task.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int byPriority = Integer.compare(other.priority, this.priority);
+            return byPriority != 0 ? byPriority : Long.compare(this.sequence, other.sequence);
+        }
+    }
+}
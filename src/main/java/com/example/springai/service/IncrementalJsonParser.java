@@ -0,0 +1,170 @@
+package com.example.springai.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Feeds model output into Jackson's non-blocking parser as it streams in and reports every
+ * top-level field, and every element of a top-level array, as soon as it is complete.
+ * Text before the first {@code '{'} (such as a Markdown fence) and after the closing brace
+ * is ignored. Once the input stops being valid JSON no further events are produced; the
+ * caller still converts the full text at the end.
+ */
+final class IncrementalJsonParser {
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final JsonNodeFactory nodes;
+    private final Deque<Container> stack = new ArrayDeque<>();
+
+    private boolean started;
+    private boolean finished;
+    private boolean broken;
+
+    IncrementalJsonParser(ObjectMapper objectMapper) {
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        }
+        catch (IOException ex) {
+            throw new IllegalStateException("non-blocking JSON parser is not available", ex);
+        }
+        this.feeder = (ByteArrayFeeder) this.parser.getNonBlockingInputFeeder();
+        this.nodes = objectMapper.getNodeFactory();
+    }
+
+    List<StructuredEvent> feed(String chunk) {
+        if (this.finished || this.broken || chunk == null || chunk.isEmpty()) {
+            return List.of();
+        }
+
+        String text = chunk;
+        if (!this.started) {
+            int start = text.indexOf('{');
+            if (start < 0) {
+                return List.of();
+            }
+            text = text.substring(start);
+            this.started = true;
+        }
+
+        List<StructuredEvent> events = new ArrayList<>();
+        try {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            this.feeder.feedInput(bytes, 0, bytes.length);
+
+            JsonToken token;
+            while (!this.finished && (token = this.parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                handle(token, events);
+            }
+        }
+        catch (IOException ex) {
+            this.broken = true;
+        }
+        return events;
+    }
+
+    private void handle(JsonToken token, List<StructuredEvent> events) throws IOException {
+        switch (token) {
+            case FIELD_NAME -> this.stack.peek().pendingField = this.parser.currentName();
+            case START_OBJECT -> open(this.nodes.objectNode());
+            case START_ARRAY -> open(this.nodes.arrayNode());
+            case END_OBJECT, END_ARRAY -> {
+                Container closed = this.stack.pop();
+                if (this.stack.isEmpty()) {
+                    this.finished = true;
+                }
+                else {
+                    completed(closed.node, closed.path, events);
+                }
+            }
+            default -> {
+                Container parent = this.stack.peek();
+                if (parent == null) {
+                    return;
+                }
+                String path = childPath(parent);
+                JsonNode value = scalar(token);
+                attach(parent, value);
+                completed(value, path, events);
+            }
+        }
+    }
+
+    private void open(JsonNode node) {
+        Container parent = this.stack.peek();
+        if (parent == null) {
+            this.stack.push(new Container(node, ""));
+            return;
+        }
+        String path = childPath(parent);
+        attach(parent, node);
+        this.stack.push(new Container(node, path));
+    }
+
+    /**
+     * Emits values that sit directly under the root object, or directly inside an array that does.
+     */
+    private void completed(JsonNode value, String path, List<StructuredEvent> events) {
+        if (this.stack.size() == 1) {
+            events.add(new StructuredEvent(StructuredEvent.FIELD, path, value));
+        }
+        else if (this.stack.size() == 2 && this.stack.peek().node.isArray()) {
+            events.add(new StructuredEvent(StructuredEvent.ITEM, path, value));
+        }
+    }
+
+    private String childPath(Container parent) {
+        String segment = parent.node.isArray()
+                ? "[" + parent.node.size() + "]"
+                : parent.pendingField;
+        if (parent.path.isEmpty() || parent.node.isArray()) {
+            return parent.path + segment;
+        }
+        return parent.path + "." + segment;
+    }
+
+    private void attach(Container parent, JsonNode value) {
+        if (parent.node instanceof ArrayNode array) {
+            array.add(value);
+        }
+        else if (parent.node instanceof ObjectNode object) {
+            object.set(parent.pendingField, value);
+        }
+    }
+
+    private JsonNode scalar(JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_STRING -> this.nodes.textNode(this.parser.getText());
+            case VALUE_NUMBER_INT -> this.nodes.numberNode(this.parser.getBigIntegerValue());
+            case VALUE_NUMBER_FLOAT -> this.nodes.numberNode(this.parser.getDecimalValue());
+            case VALUE_TRUE -> this.nodes.booleanNode(true);
+            case VALUE_FALSE -> this.nodes.booleanNode(false);
+            default -> this.nodes.nullNode();
+        };
+    }
+
+    private static final class Container {
+
+        private final JsonNode node;
+        private final String path;
+        private String pendingField;
+
+        private Container(JsonNode node, String path) {
+            this.node = node;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.springai.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small thread-safe LRU map with a per-entry time-to-live, used for in-memory result caches.
+ */
+final class LruCache<V> {
+
+    private final Duration ttl;
+    private final Map<String, Entry<V>> entries;
+
+    LruCache(int maxEntries, Duration ttl) {
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                return size() > Math.max(0, maxEntries);
+            }
+        };
+    }
+
+    synchronized V get(String key) {
+        Entry<V> entry = this.entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt().isBefore(Instant.now())) {
+            this.entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    synchronized void put(String key, V value) {
+        this.entries.put(key, new Entry<>(value, Instant.now().plus(this.ttl)));
+    }
+
+    private record Entry<V>(V value, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.springai.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown without calling the provider when every chat route's circuit breaker is open.
+ */
+public class ModelUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ModelUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return this.retryAfter;
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.springai.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import com.example.springai.config.ModerationProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.moderation.Categories;
+import org.springframework.ai.moderation.CategoryScores;
+import org.springframework.ai.moderation.Moderation;
+import org.springframework.ai.moderation.ModerationModel;
+import org.springframework.ai.moderation.ModerationPrompt;
+import org.springframework.ai.moderation.ModerationResult;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Moderates single texts and batches through a bounded LRU cache of verdicts keyed by the
+ * normalized text, so repeated messages do not reach the provider again. Batch misses are
+ * packed into multi-input requests to {@code /v1/moderations}, which {@link ModerationPrompt}
+ * cannot express, so a batch costs a few provider calls instead of one per text.
+ */
+@Service
+public class ModerationService {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Verdict NOT_FLAGGED = new Verdict(false, Map.of(), Map.of());
+    private static final String DEFAULT_MODEL = "omni-moderation-latest";
+    private static final Map<String, String> BATCH_CATEGORIES = Map.of(
+            "sexual", "sexual",
+            "hate", "hate",
+            "harassment", "harassment",
+            "selfHarm", "self-harm",
+            "violence", "violence",
+            "pii", "pii"
+    );
+
+    private final ModerationProperties properties;
+    private final String modelName;
+    private final ExecutorService executor;
+    private final LruCache<Verdict> cache;
+    private final RestClient moderationClient;
+
+    public ModerationService(ModerationProperties properties,
+                             @Value("${spring.ai.openai.moderation.options.model:}") String modelName,
+                             @Value("${spring.ai.openai.moderation.base-url:${spring.ai.openai.base-url:https://api.openai.com}}")
+                             String baseUrl,
+                             @Value("${spring.ai.openai.moderation.api-key:${spring.ai.openai.api-key:}}") String apiKey) {
+        this.properties = properties;
+        this.modelName = modelName;
+        this.executor = Executors.newFixedThreadPool(
+                Math.max(1, properties.parallelism()),
+                new CustomizableThreadFactory("moderation-")
+        );
+        this.cache = new LruCache<>(properties.cacheMaxEntries(), properties.cacheTtl());
+        this.moderationClient = RestClient.builder()
+                .baseUrl(baseUrl)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .defaultStatusHandler(HttpStatusCode::isError, (request, response) -> throwProviderError(response))
+                .build();
+    }
+
+    /**
+     * Mirrors Spring AI's default error handler, which the single-text path goes through:
+     * every 4xx, 429 included, is non-transient and 5xx is transient, with the status code
+     * leading the message, so both paths reach the same API error mapping.
+     */
+    static void throwProviderError(ClientHttpResponse response) throws IOException {
+        String message = response.getStatusCode().value() + " - "
+                + StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8);
+        if (response.getStatusCode().is4xxClientError()) {
+            throw new NonTransientAiException(message);
+        }
+        throw new TransientAiException(message);
+    }
+
+    public Verdict moderate(ModerationModel model, String text) {
+        String key = cacheKey(text);
+        Verdict cached = this.cache.get(key);
+        return cached != null ? cached : callAndCache(model, key, text);
+    }
+
+    /**
+     * Verdicts in input order. Cached texts are answered directly; every other distinct
+     * text is moderated once, packed with other misses into a few multi-input provider
+     * requests that run concurrently.
+     */
+    public BatchVerdicts moderateBatch(List<String> texts) {
+        if (texts.size() > this.properties.batchMaxItems()) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "batch size " + texts.size() + " exceeds limit " + this.properties.batchMaxItems()
+            );
+        }
+        for (int i = 0; i < texts.size(); i++) {
+            if (!StringUtils.hasText(texts.get(i))) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "texts[" + i + "] is required");
+            }
+        }
+
+        List<String> keys = new ArrayList<>(texts.size());
+        Map<String, Verdict> verdicts = new HashMap<>();
+        Map<String, String> misses = new LinkedHashMap<>();
+        int cacheHits = 0;
+
+        for (String text : texts) {
+            String key = cacheKey(text);
+            keys.add(key);
+            if (verdicts.containsKey(key) || misses.containsKey(key)) {
+                continue;
+            }
+            Verdict cached = this.cache.get(key);
+            if (cached != null) {
+                verdicts.put(key, cached);
+                cacheHits++;
+            }
+            else {
+                misses.put(key, text);
+            }
+        }
+
+        List<List<String>> packs = pack(new ArrayList<>(misses.keySet()), misses);
+        List<Future<List<Verdict>>> calls = new ArrayList<>(packs.size());
+        for (List<String> packKeys : packs) {
+            List<String> packTexts = packKeys.stream().map(misses::get).toList();
+            calls.add(this.executor.submit(() -> callBatchAndCache(packKeys, packTexts)));
+        }
+        List<List<Verdict>> fresh = Futures.awaitAll(calls);
+        for (int i = 0; i < packs.size(); i++) {
+            List<String> packKeys = packs.get(i);
+            for (int j = 0; j < packKeys.size(); j++) {
+                verdicts.put(packKeys.get(j), fresh.get(i).get(j));
+            }
+        }
+
+        return new BatchVerdicts(keys.stream().map(verdicts::get).toList(), cacheHits, packs.size());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private Verdict callAndCache(ModerationModel model, String key, String text) {
+        Moderation moderation = model.call(new ModerationPrompt(text)).getResult().getOutput();
+        ModerationResult result = moderation.getResults().isEmpty() ? null : moderation.getResults().get(0);
+
+        Verdict verdict = result == null
+                ? NOT_FLAGGED
+                : new Verdict(result.isFlagged(), toCategoryMap(result.getCategories()),
+                toScoreMap(result.getCategoryScores()));
+
+        this.cache.put(key, verdict);
+        return verdict;
+    }
+
+    /**
+     * Groups keys into provider requests of at most {@code provider-batch-items} texts and
+     * {@code max-input-chars} characters; a longer text is sent in a request of its own.
+     */
+    private List<List<String>> pack(List<String> keys, Map<String, String> texts) {
+        List<List<String>> packs = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int currentChars = 0;
+
+        for (String key : keys) {
+            int length = texts.get(key).length();
+            boolean full = current.size() >= this.properties.providerBatchItems()
+                    || currentChars + length > this.properties.maxInputChars();
+            if (!current.isEmpty() && full) {
+                packs.add(current);
+                current = new ArrayList<>();
+                currentChars = 0;
+            }
+            current.add(key);
+            currentChars += length;
+        }
+        if (!current.isEmpty()) {
+            packs.add(current);
+        }
+        return packs;
+    }
+
+    private List<Verdict> callBatchAndCache(List<String> keys, List<String> texts) {
+        String model = StringUtils.hasText(this.modelName) ? this.modelName : DEFAULT_MODEL;
+        ModerationResponse response = this.moderationClient.post()
+                .uri("/v1/moderations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ModerationRequest(model, texts))
+                .retrieve()
+                .body(ModerationResponse.class);
+
+        List<BatchResult> results = response == null || response.results() == null ? List.of() : response.results();
+        if (results.size() != texts.size()) {
+            throw new TransientAiException(
+                    "moderation returned " + results.size() + " results for " + texts.size() + " inputs");
+        }
+
+        List<Verdict> verdicts = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Verdict verdict = toVerdict(results.get(i));
+            this.cache.put(keys.get(i), verdict);
+            verdicts.add(verdict);
+        }
+        return verdicts;
+    }
+
+    /**
+     * Same category names as {@link #toCategoryMap}, so single and batch answers look alike.
+     */
+    private Verdict toVerdict(BatchResult result) {
+        Map<String, Boolean> categories = new HashMap<>();
+        Map<String, Double> scores = new HashMap<>();
+        Map<String, Boolean> rawCategories = result.categories() == null ? Map.of() : result.categories();
+        Map<String, Double> rawScores = result.categoryScores() == null ? Map.of() : result.categoryScores();
+
+        BATCH_CATEGORIES.forEach((name, providerName) -> {
+            categories.put(name, Boolean.TRUE.equals(rawCategories.get(providerName)));
+            scores.put(name, rawScores.getOrDefault(providerName, 0.0));
+        });
+        return new Verdict(result.flagged(), Collections.unmodifiableMap(categories),
+                Collections.unmodifiableMap(scores));
+    }
+
+    /**
+     * NFKC plus collapsed whitespace, so visually identical messages share a verdict.
+     * Case is kept because it can change how a message reads.
+     */
+    private String cacheKey(String text) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFKC).strip())
+                .replaceAll(" ");
+        return Hashing.sha256Hex(this.modelName, normalized);
+    }
+
+    private Map<String, Boolean> toCategoryMap(Categories categories) {
+        if (categories == null) {
+            return Map.of();
+        }
+
+        Map<String, Boolean> map = new HashMap<>();
+        map.put("sexual", categories.isSexual());
+        map.put("hate", categories.isHate());
+        map.put("harassment", categories.isHarassment());
+        map.put("selfHarm", categories.isSelfHarm());
+        map.put("violence", categories.isViolence());
+        map.put("pii", categories.isPii());
+        return Collections.unmodifiableMap(map);
+    }
+
+    private Map<String, Double> toScoreMap(CategoryScores scores) {
+        if (scores == null) {
+            return Map.of();
+        }
+
+        Map<String, Double> map = new HashMap<>();
+        map.put("sexual", scores.getSexual());
+        map.put("hate", scores.getHate());
+        map.put("harassment", scores.getHarassment());
+        map.put("selfHarm", scores.getSelfHarm());
+        map.put("violence", scores.getViolence());
+        map.put("pii", scores.getPii());
+        return Collections.unmodifiableMap(map);
+    }
+
+    public record Verdict(boolean flagged, Map<String, Boolean> categories, Map<String, Double> scores) {
+    }
+
+    public record BatchVerdicts(List<Verdict> verdicts, int cacheHits, int providerCalls) {
+    }
+
+    private record ModerationRequest(String model, List<String> input) {
+    }
+
+    private record ModerationResponse(List<BatchResult> results) {
+    }
+
+    private record BatchResult(boolean flagged,
+                               Map<String, Boolean> categories,
+                               @JsonProperty("category_scores") Map<String, Double> categoryScores) {
+    }
+}
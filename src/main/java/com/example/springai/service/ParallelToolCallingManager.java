@@ -0,0 +1,426 @@
+package com.example.springai.service;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.springai.config.ToolProperties;
+import com.example.springai.tool.ToolPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.support.ToolCallbacks;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Application-wide tool-calling manager: the chat model's tool loop hands every turn to it,
+ * and all tool calls of that turn run concurrently, with a timeout per tool, a result cache
+ * for tools marked {@link ToolPolicy#cacheable()} and latency statistics per tool.
+ * <p>
+ * The calls are executed up front; the finished results are then replayed through Spring AI's
+ * {@link DefaultToolCallingManager}, which still builds the conversation history, applies
+ * {@code returnDirect} and turns tool failures into messages for the model.
+ */
+@Component
+public class ParallelToolCallingManager implements ToolCallingManager {
+
+    private final ToolProperties properties;
+    private final ToolCallingManager delegate;
+    private final ObjectMapper canonicalJson;
+    private final ExecutorService executor;
+    private final LruCache<String> resultCache;
+    private final Map<String, ToolPolicy> policies = new ConcurrentHashMap<>();
+    private final Map<String, ToolStats> stats = new ConcurrentHashMap<>();
+
+    public ParallelToolCallingManager(ToolProperties properties,
+                                      ObjectMapper objectMapper,
+                                      ObjectProvider<ToolCallbackResolver> toolCallbackResolver,
+                                      ObjectProvider<ToolExecutionExceptionProcessor> exceptionProcessor,
+                                      ObjectProvider<ObservationRegistry> observationRegistry) {
+        this.properties = properties;
+
+        DefaultToolCallingManager.Builder delegateBuilder = DefaultToolCallingManager.builder();
+        toolCallbackResolver.ifAvailable(delegateBuilder::toolCallbackResolver);
+        exceptionProcessor.ifAvailable(delegateBuilder::toolExecutionExceptionProcessor);
+        observationRegistry.ifAvailable(delegateBuilder::observationRegistry);
+        this.delegate = delegateBuilder.build();
+
+        this.canonicalJson = objectMapper.copy().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        this.executor = Executors.newFixedThreadPool(
+                Math.max(1, properties.parallelism()),
+                new CustomizableThreadFactory("tool-call-")
+        );
+        this.resultCache = new LruCache<>(properties.cacheMaxEntries(), properties.cacheTtl());
+    }
+
+    /**
+     * Builds the callbacks for the given tool objects and records their {@link ToolPolicy} hints.
+     */
+    public ToolCallback[] register(Object... toolObjects) {
+        for (Object toolObject : toolObjects) {
+            for (Method method : ClassUtils.getUserClass(toolObject).getMethods()) {
+                Tool tool = method.getAnnotation(Tool.class);
+                ToolPolicy policy = method.getAnnotation(ToolPolicy.class);
+                if (tool != null && policy != null) {
+                    this.policies.put(StringUtils.hasText(tool.name()) ? tool.name() : method.getName(), policy);
+                }
+            }
+        }
+        return ToolCallbacks.from(toolObjects);
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return this.delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(message -> !CollectionUtils.isEmpty(message.getToolCalls()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No tool call requested by the chat model"));
+
+        if (!(prompt.getOptions() instanceof ToolCallingChatOptions options)) {
+            return this.delegate.executeToolCalls(prompt, chatResponse);
+        }
+
+        Map<String, ToolCallback> callbacks = new HashMap<>();
+        for (ToolCallback callback : options.getToolCallbacks()) {
+            callbacks.put(callback.getToolDefinition().name(), callback);
+        }
+
+        ToolContext toolContext = buildToolContext(prompt, options, assistantMessage);
+
+        Map<String, Outcome> outcomes = runConcurrently(assistantMessage.getToolCalls(), callbacks, toolContext);
+
+        List<ToolCallback> replays = new ArrayList<>(callbacks.size());
+        for (ToolCallback callback : callbacks.values()) {
+            replays.add(new ReplayToolCallback(callback, outcomes));
+        }
+
+        ToolCallingChatOptions replayOptions = (ToolCallingChatOptions) options.copy();
+        replayOptions.setToolCallbacks(replays);
+        return this.delegate.executeToolCalls(new Prompt(prompt.getInstructions(), replayOptions), chatResponse);
+    }
+
+    /**
+     * Per-tool call counts and latencies since startup, keyed by tool name.
+     */
+    public Map<String, ToolStatsSnapshot> statistics() {
+        Map<String, ToolStatsSnapshot> snapshot = new HashMap<>();
+        this.stats.forEach((name, toolStats) -> snapshot.put(name, toolStats.snapshot()));
+        return snapshot;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private Map<String, Outcome> runConcurrently(List<AssistantMessage.ToolCall> toolCalls,
+                                                 Map<String, ToolCallback> callbacks,
+                                                 ToolContext toolContext) {
+        Map<String, Outcome> outcomes = new HashMap<>();
+        Map<String, TimedCall> running = new HashMap<>();
+
+        for (AssistantMessage.ToolCall toolCall : toolCalls) {
+            String arguments = toolInput(toolCall.arguments());
+            String key = resultKey(toolCall.name(), arguments);
+            ToolCallback callback = callbacks.get(toolCall.name());
+            if (callback == null || outcomes.containsKey(key) || running.containsKey(key)) {
+                continue;
+            }
+
+            ToolPolicy policy = this.policies.get(toolCall.name());
+            if (policy != null && policy.cacheable()) {
+                String cached = this.resultCache.get(key);
+                if (cached != null) {
+                    statsFor(toolCall.name()).cacheHits.increment();
+                    outcomes.put(key, Outcome.success(cached));
+                    continue;
+                }
+            }
+
+            TimedCall call = new TimedCall(() -> callback.call(arguments, toolContext));
+            call.future = this.executor.submit(call);
+            running.put(key, call);
+        }
+
+        for (AssistantMessage.ToolCall toolCall : toolCalls) {
+            String key = resultKey(toolCall.name(), toolInput(toolCall.arguments()));
+            TimedCall call = running.remove(key);
+            if (call != null) {
+                outcomes.put(key, await(toolCall.name(), key, call));
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * The context {@link DefaultToolCallingManager} hands to tools: the configured entries plus
+     * the conversation up to and including the assistant's tool request.
+     */
+    private ToolContext buildToolContext(Prompt prompt, ToolCallingChatOptions options, AssistantMessage assistantMessage) {
+        if (CollectionUtils.isEmpty(options.getToolContext())) {
+            return new ToolContext(Map.of());
+        }
+        List<Message> history = new ArrayList<>(prompt.copy().getInstructions());
+        history.add(assistantMessage);
+
+        Map<String, Object> context = new HashMap<>(options.getToolContext());
+        context.put(ToolContext.TOOL_CALL_HISTORY, history);
+        return new ToolContext(context);
+    }
+
+    /**
+     * Blank arguments become an empty JSON object, as in {@link DefaultToolCallingManager}, so the
+     * pre-executed call and the replayed one see the same input and share a result key.
+     */
+    private static String toolInput(String arguments) {
+        return StringUtils.hasText(arguments) ? arguments : "{}";
+    }
+
+    /**
+     * Waits for the call to get a worker, bounded by {@code queue-timeout}, and then for its
+     * result, bounded by the tool's own timeout counted from when it started running. Queue
+     * wait is recorded separately from tool latency.
+     */
+    private Outcome await(String toolName, String key, TimedCall call) {
+        ToolStats toolStats = statsFor(toolName);
+        try {
+            long queueDeadline = call.queuedAt + this.properties.queueTimeout().toNanos();
+            if (!call.started.await(Math.max(0, queueDeadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                call.future.cancel(true);
+                toolStats.queueTimeouts.increment();
+                return Outcome.failure(new TimeoutException(
+                        "tool " + toolName + " waited " + this.properties.queueTimeout().toMillis()
+                                + " ms for a free worker"));
+            }
+            toolStats.recordQueueWait(call.startedAt - call.queuedAt);
+
+            long timeout = timeoutFor(this.policies.get(toolName));
+            long deadline = call.startedAt + timeout;
+            String result = call.future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            toolStats.record(System.nanoTime() - call.startedAt);
+            ToolPolicy policy = this.policies.get(toolName);
+            if (policy != null && policy.cacheable() && result != null) {
+                this.resultCache.put(key, result);
+            }
+            return Outcome.success(result);
+        }
+        catch (TimeoutException ex) {
+            call.future.cancel(true);
+            toolStats.record(System.nanoTime() - call.startedAt);
+            toolStats.timeouts.increment();
+            return Outcome.failure(new TimeoutException(
+                    "tool " + toolName + " timed out after "
+                            + TimeUnit.NANOSECONDS.toMillis(timeoutFor(this.policies.get(toolName))) + " ms"));
+        }
+        catch (ExecutionException ex) {
+            toolStats.record(System.nanoTime() - call.startedAt);
+            toolStats.errors.increment();
+            return Outcome.failure(ex.getCause());
+        }
+        catch (InterruptedException ex) {
+            call.future.cancel(true);
+            Thread.currentThread().interrupt();
+            return Outcome.failure(ex);
+        }
+    }
+
+    private long timeoutFor(ToolPolicy policy) {
+        long millis = policy != null && policy.timeoutMillis() > 0
+                ? policy.timeoutMillis()
+                : this.properties.defaultTimeout().toMillis();
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Tool name plus arguments re-serialized with sorted keys, so argument order does not
+     * defeat the cache; falls back to the raw text when it is not valid JSON.
+     */
+    private String resultKey(String toolName, String arguments) {
+        String canonical = arguments == null ? "" : arguments;
+        try {
+            canonical = this.canonicalJson.writeValueAsString(this.canonicalJson.readValue(canonical, Object.class));
+        }
+        catch (Exception ignored) {
+            // keep the raw arguments
+        }
+        return toolName + "\u0000" + canonical;
+    }
+
+    private ToolStats statsFor(String toolName) {
+        return this.stats.computeIfAbsent(toolName, name -> new ToolStats());
+    }
+
+    /**
+     * A submitted tool call that notes when a worker picks it up, so timeouts and latency
+     * are measured from the start of the call rather than from submission.
+     */
+    private static final class TimedCall implements Callable<String> {
+
+        private final Callable<String> body;
+        private final long queuedAt = System.nanoTime();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile long startedAt;
+        private Future<String> future;
+
+        private TimedCall(Callable<String> body) {
+            this.body = body;
+        }
+
+        @Override
+        public String call() throws Exception {
+            this.startedAt = System.nanoTime();
+            this.started.countDown();
+            return this.body.call();
+        }
+    }
+
+    private record Outcome(String result, Throwable failure) {
+
+        static Outcome success(String result) {
+            return new Outcome(result, null);
+        }
+
+        static Outcome failure(Throwable failure) {
+            return new Outcome(null, failure);
+        }
+    }
+
+    /**
+     * Answers the delegate's sequential calls from results computed in {@link #runConcurrently}.
+     */
+    private final class ReplayToolCallback implements ToolCallback {
+
+        private final ToolCallback target;
+        private final Map<String, Outcome> outcomes;
+
+        private ReplayToolCallback(ToolCallback target, Map<String, Outcome> outcomes) {
+            this.target = target;
+            this.outcomes = outcomes;
+        }
+
+        @Override
+        public ToolDefinition getToolDefinition() {
+            return this.target.getToolDefinition();
+        }
+
+        @Override
+        public ToolMetadata getToolMetadata() {
+            return this.target.getToolMetadata();
+        }
+
+        @Override
+        public String call(String toolInput) {
+            return call(toolInput, null);
+        }
+
+        @Override
+        public String call(String toolInput, ToolContext toolContext) {
+            Outcome outcome = this.outcomes.get(resultKey(getToolDefinition().name(), toolInput));
+            if (outcome == null) {
+                return this.target.call(toolInput, toolContext);
+            }
+            if (outcome.failure() instanceof ToolExecutionException toolExecutionException) {
+                throw toolExecutionException;
+            }
+            if (outcome.failure() != null) {
+                throw new ToolExecutionException(getToolDefinition(), outcome.failure());
+            }
+            return outcome.result();
+        }
+    }
+
+    private static final class ToolStats {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder queueTimeouts = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder queued = new LongAdder();
+        private final LongAdder totalQueueNanos = new LongAdder();
+        private final AtomicLong maxQueueNanos = new AtomicLong();
+
+        private void record(long nanos) {
+            this.calls.increment();
+            this.totalNanos.add(nanos);
+            this.maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private void recordQueueWait(long nanos) {
+            this.queued.increment();
+            this.totalQueueNanos.add(nanos);
+            this.maxQueueNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private ToolStatsSnapshot snapshot() {
+            long callCount = this.calls.sum();
+            long queuedCount = this.queued.sum();
+            return new ToolStatsSnapshot(
+                    callCount,
+                    this.errors.sum(),
+                    this.timeouts.sum(),
+                    this.queueTimeouts.sum(),
+                    this.cacheHits.sum(),
+                    callCount == 0 ? 0 : this.totalNanos.sum() / callCount / 1_000_000.0,
+                    this.maxNanos.get() / 1_000_000.0,
+                    queuedCount == 0 ? 0 : this.totalQueueNanos.sum() / queuedCount / 1_000_000.0,
+                    this.maxQueueNanos.get() / 1_000_000.0
+            );
+        }
+    }
+
+    public record ToolStatsSnapshot(long calls,
+                                    long errors,
+                                    long timeouts,
+                                    long queueTimeouts,
+                                    long cacheHits,
+                                    double avgMillis,
+                                    double maxMillis,
+                                    double avgQueueMillis,
+                                    double maxQueueMillis) {
+    }
+}
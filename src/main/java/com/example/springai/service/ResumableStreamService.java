@@ -0,0 +1,284 @@
+package com.example.springai.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.example.springai.config.StreamProperties;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Decouples a chat generation from the HTTP connection that started it. Token deltas are
+ * coalesced into SSE frames by time or size, every frame gets an id of the form
+ * {@code <streamId>:<sequence>}, and the latest frames are kept in a bounded replay buffer,
+ * so a client reconnecting with {@code Last-Event-ID} continues where it stopped without a
+ * second provider call. Open connections receive heartbeat comments while waiting.
+ * Generations are capped in number and in lifetime, so a hung provider stream cannot keep
+ * its session and flush ticker alive forever.
+ */
+@Service
+public class ResumableStreamService {
+
+    public static final String DONE_EVENT = "done";
+    public static final String ERROR_EVENT = "error";
+    public static final String GAP_EVENT = "gap";
+
+    private final StreamProperties properties;
+    private final Map<String, StreamSession> sessions = new ConcurrentHashMap<>();
+    private final LongAdder totalFrames = new LongAdder();
+    private final LongAdder totalBytes = new LongAdder();
+    private final LongAdder totalResumes = new LongAdder();
+    private final AtomicInteger liveStreams = new AtomicInteger();
+
+    public ResumableStreamService(StreamProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Subscribes to the generation once and returns the first connection's view of it, or
+     * {@code null} when {@code max-live-streams} generations are already running.
+     * The generation keeps running if that connection drops, up to {@code max-lifetime}.
+     */
+    public Flux<ServerSentEvent<String>> start(Flux<String> deltas, Function<Throwable, String> errorMessage) {
+        if (!tryReserveLiveStream()) {
+            return null;
+        }
+
+        StreamSession session = new StreamSession(UUID.randomUUID().toString(), this.properties.replayFrames());
+        this.sessions.put(session.id, session);
+
+        Disposable ticker = Flux.interval(this.properties.coalesceInterval())
+                .subscribe(tick -> session.flush());
+
+        Disposable generation = deltas.subscribe(
+                delta -> session.append(delta, this.properties.coalesceMaxChars()),
+                ex -> end(session, ticker, ERROR_EVENT, errorMessage.apply(ex)),
+                () -> end(session, ticker, DONE_EVENT, "[DONE]")
+        );
+
+        Mono.delay(this.properties.maxLifetime()).subscribe(tick -> {
+            if (!session.isFinished()) {
+                generation.dispose();
+                end(session, ticker, ERROR_EVENT, errorMessage.apply(new TimeoutException(
+                        "stream exceeded " + this.properties.maxLifetime())));
+            }
+        });
+
+        return connect(session, 0);
+    }
+
+    /**
+     * Replays the frames after {@code lastEventId} and follows the stream live, or returns
+     * {@code null} when the id does not belong to a retained stream.
+     */
+    public Flux<ServerSentEvent<String>> resume(String lastEventId) {
+        int separator = lastEventId.lastIndexOf(':');
+        if (separator <= 0) {
+            return null;
+        }
+
+        StreamSession session = this.sessions.get(lastEventId.substring(0, separator));
+        if (session == null) {
+            return null;
+        }
+
+        long lastSequence;
+        try {
+            lastSequence = Long.parseLong(lastEventId.substring(separator + 1));
+        }
+        catch (NumberFormatException ex) {
+            return null;
+        }
+
+        this.totalResumes.increment();
+        session.resumes.increment();
+        return connect(session, lastSequence);
+    }
+
+    public StreamMetrics metrics(String streamId) {
+        StreamSession session = this.sessions.get(streamId);
+        return session == null ? null : session.metrics();
+    }
+
+    public StreamSummary summary() {
+        return new StreamSummary(
+                this.liveStreams.get(),
+                this.sessions.size(),
+                this.totalFrames.sum(),
+                this.totalBytes.sum(),
+                this.totalResumes.sum()
+        );
+    }
+
+    private Flux<ServerSentEvent<String>> connect(StreamSession session, long afterSequence) {
+        Flux<ServerSentEvent<String>> frames = session.sink.asFlux()
+                .filter(frame -> frame.sequence() > afterSequence)
+                .map(frame -> toEvent(session.id, frame));
+
+        long oldest = session.oldestRetainedSequence();
+        if (afterSequence > 0 && oldest > afterSequence + 1) {
+            frames = Flux.just(ServerSentEvent.<String>builder()
+                            .event(GAP_EVENT)
+                            .data("frames " + (afterSequence + 1) + ".." + (oldest - 1) + " are no longer buffered")
+                            .build())
+                    .concatWith(frames);
+        }
+
+        Flux<ServerSentEvent<String>> heartbeats = Flux.interval(this.properties.heartbeatInterval())
+                .map(tick -> ServerSentEvent.<String>builder().comment("heartbeat").build());
+
+        return Flux.merge(frames, heartbeats)
+                .takeUntil(event -> DONE_EVENT.equals(event.event()) || ERROR_EVENT.equals(event.event()));
+    }
+
+    private ServerSentEvent<String> toEvent(String streamId, Frame frame) {
+        return ServerSentEvent.<String>builder()
+                .id(streamId + ":" + frame.sequence())
+                .event(frame.event())
+                .data(frame.data())
+                .build();
+    }
+
+    private boolean tryReserveLiveStream() {
+        int max = Math.max(1, this.properties.maxLiveStreams());
+        while (true) {
+            int current = this.liveStreams.get();
+            if (current >= max) {
+                return false;
+            }
+            if (this.liveStreams.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Finishes the session once, whichever of completion, error or the lifetime limit comes first.
+     */
+    private void end(StreamSession session, Disposable ticker, String event, String data) {
+        ticker.dispose();
+        if (session.finish(event, data)) {
+            this.liveStreams.decrementAndGet();
+            scheduleRemoval(session);
+        }
+    }
+
+    private void scheduleRemoval(StreamSession session) {
+        Mono.delay(this.properties.retention())
+                .subscribe(tick -> this.sessions.remove(session.id, session));
+    }
+
+    private record Frame(long sequence, String event, String data) {
+    }
+
+    public record StreamMetrics(String streamId,
+                                boolean finished,
+                                long deltas,
+                                long frames,
+                                long bytes,
+                                long resumes,
+                                Instant startedAt,
+                                Instant finishedAt) {
+    }
+
+    public record StreamSummary(int activeStreams,
+                                int retainedStreams,
+                                long totalFrames,
+                                long totalBytes,
+                                long totalResumes) {
+    }
+
+    private final class StreamSession {
+
+        private final String id;
+        private final int replayFrames;
+        private final Sinks.Many<Frame> sink;
+        private final Instant startedAt = Instant.now();
+        private final StringBuilder pending = new StringBuilder();
+        private final LongAdder resumes = new LongAdder();
+
+        private long sequence;
+        private long deltas;
+        private long bytes;
+        private boolean finished;
+        private Instant finishedAt;
+
+        private StreamSession(String id, int replayFrames) {
+            this.id = id;
+            this.replayFrames = Math.max(1, replayFrames);
+            this.sink = Sinks.many().replay().limit(this.replayFrames);
+        }
+
+        private synchronized void append(String delta, int maxChars) {
+            if (this.finished || delta == null || delta.isEmpty()) {
+                return;
+            }
+            this.deltas++;
+            this.pending.append(delta);
+            if (this.pending.length() >= maxChars) {
+                flush();
+            }
+        }
+
+        private synchronized void flush() {
+            if (this.finished || this.pending.length() == 0) {
+                return;
+            }
+            emit(null, this.pending.toString());
+            this.pending.setLength(0);
+        }
+
+        private synchronized boolean finish(String event, String data) {
+            if (this.finished) {
+                return false;
+            }
+            flush();
+            emit(event, data);
+            this.finished = true;
+            this.finishedAt = Instant.now();
+            this.sink.tryEmitComplete();
+            return true;
+        }
+
+        private void emit(String event, String data) {
+            long size = data.getBytes(StandardCharsets.UTF_8).length;
+            this.sequence++;
+            this.bytes += size;
+            totalFrames.increment();
+            totalBytes.add(size);
+            this.sink.tryEmitNext(new Frame(this.sequence, event, data));
+        }
+
+        private synchronized boolean isFinished() {
+            return this.finished;
+        }
+
+        private synchronized long oldestRetainedSequence() {
+            return Math.max(1, this.sequence - this.replayFrames + 1);
+        }
+
+        private synchronized StreamMetrics metrics() {
+            return new StreamMetrics(
+                    this.id,
+                    this.finished,
+                    this.deltas,
+                    this.sequence,
+                    this.bytes,
+                    this.resumes.sum(),
+                    this.startedAt,
+                    this.finishedAt
+            );
+        }
+    }
+}
@@ -0,0 +1,624 @@
+package com.example.springai.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.example.springai.config.RoutingProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+
+/**
+ * Chat model that spreads calls over several configured routes. Routes are ranked by an
+ * EWMA of latency inflated by an EWMA of errors, short prompts prefer routes marked cheap,
+ * and each route has a circuit breaker so a failing backend is skipped instead of waited on.
+ * A blocking call that outlives the route's p95 latency is hedged with a second request on
+ * the next-best other route, and the first successful answer wins. Hedges never go to the
+ * route already serving the call, and a budget keeps them to {@code max-hedge-ratio} of calls,
+ * so a slow provider does not receive duplicate traffic exactly when it is struggling.
+ * <p>
+ * Delegates for plain prompts do not retry on their own; fail-over here is the retry, so the breakers see
+ * failures as they happen. A retry on the route that just failed waits {@code retry-backoff}
+ * first. Only transient failures (5xx, 429, I/O errors and timeouts) count against a route;
+ * other errors, such as a rejected request, are rethrown to the caller as is.
+ * <p>
+ * Prompts that carry tool callbacks are neither hedged nor retried here, because repeating the
+ * whole call would run the tools again. They go to a second delegate per route that retries a
+ * failed completion request itself, with exponential backoff, so tools that already ran are
+ * not repeated. Streams are routed and feed the breakers, but are not hedged.
+ */
+public class RoutingChatModel implements ChatModel {
+
+    private static final int LATENCY_WINDOW = 100;
+    private static final int MIN_SAMPLES_FOR_P95 = 20;
+    private static final double HEDGE_BURST = 10;
+    private static final Pattern STATUS_PREFIX = Pattern.compile("^(\\d{3})\\b");
+
+    private final RoutingProperties properties;
+    private final ChatOptions defaultOptions;
+    private final LongSupplier clock;
+    private final List<RouteState> routes;
+    private final ExecutorService executor;
+    private final HedgeBudget hedgeBudget;
+
+    public RoutingChatModel(OpenAiChatModel baseModel, RoutingProperties properties, String defaultApiKey) {
+        this(properties, baseModel.getDefaultOptions(), createTargets(baseModel, properties, defaultApiKey),
+                System::nanoTime);
+    }
+
+    RoutingChatModel(RoutingProperties properties,
+                     ChatOptions defaultOptions,
+                     List<RouteTarget> targets,
+                     LongSupplier clock) {
+        this.properties = properties;
+        this.defaultOptions = defaultOptions;
+        this.clock = clock;
+        this.routes = targets.stream().map(RouteState::new).toList();
+        this.executor = Executors.newFixedThreadPool(
+                Math.max(2, properties.maxConcurrentCalls()),
+                new CustomizableThreadFactory("chat-route-")
+        );
+        this.hedgeBudget = new HedgeBudget(properties.maxHedgeRatio());
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return this.defaultOptions;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        boolean hasTools = hasToolCallbacks(prompt);
+        int maxAttempts = hasTools ? 1 : Math.max(1, this.properties.maxAttempts());
+        Iterator<RouteState> candidates = rank(prompt).iterator();
+        if (!hasTools) {
+            this.hedgeBudget.onCall();
+        }
+
+        RouteState first = acquireNext(candidates);
+        if (first == null) {
+            throw unavailable();
+        }
+
+        ExecutorCompletionService<ChatResponse> completion = new ExecutorCompletionService<>(this.executor);
+        Map<Future<ChatResponse>, Attempt> inFlight = new HashMap<>();
+        submit(completion, inFlight, first, prompt);
+        int attempts = 1;
+        boolean hedged = false;
+        long hedgeDelay = first.hedgeDelayNanos();
+        RuntimeException lastFailure = null;
+
+        try {
+            while (!inFlight.isEmpty()) {
+                boolean mayHedge = !hedged && attempts < maxAttempts;
+                Future<ChatResponse> done = mayHedge
+                        ? completion.poll(hedgeDelay, TimeUnit.NANOSECONDS)
+                        : completion.take();
+
+                if (done == null) {
+                    hedged = true;
+                    if (this.hedgeBudget.trySpend()) {
+                        RouteState hedge = acquireNext(candidates);
+                        if (hedge != null) {
+                            submit(completion, inFlight, hedge, prompt);
+                            attempts++;
+                        }
+                        else {
+                            this.hedgeBudget.refund();
+                        }
+                    }
+                    continue;
+                }
+
+                Attempt attempt = inFlight.remove(done);
+                try {
+                    return done.get();
+                }
+                catch (ExecutionException ex) {
+                    lastFailure = ex.getCause() instanceof RuntimeException runtimeException
+                            ? runtimeException
+                            : new IllegalStateException("chat call failed", ex.getCause());
+                    if (!isRouteFailure(lastFailure)) {
+                        throw lastFailure;
+                    }
+
+                    if (inFlight.isEmpty() && attempts < maxAttempts) {
+                        RouteState fallback = acquireNext(candidates);
+                        if (fallback == null) {
+                            Thread.sleep(this.properties.retryBackoff().toMillis());
+                            if (attempt.route.tryAcquire()) {
+                                fallback = attempt.route;
+                            }
+                        }
+                        if (fallback != null) {
+                            submit(completion, inFlight, fallback, prompt);
+                            attempts++;
+                        }
+                    }
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for chat response", ex);
+        }
+        finally {
+            inFlight.forEach((future, attempt) -> attempt.abandon(future));
+        }
+
+        throw lastFailure != null ? lastFailure : unavailable();
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            RouteState route = acquireNext(rank(prompt).iterator());
+            if (route == null) {
+                return Flux.error(unavailable());
+            }
+            long startedAt = this.clock.getAsLong();
+            return route.model.stream(forRoute(prompt, route))
+                    .doOnComplete(() -> route.onSuccess(this.clock.getAsLong() - startedAt))
+                    .doOnError(route::onError)
+                    .doOnCancel(route::release);
+        });
+    }
+
+    public List<RouteStatus> routeStatuses() {
+        return this.routes.stream().map(RouteState::status).toList();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Whether a failure says something about the route rather than the request: provider 5xx
+     * and 429 responses, I/O errors and timeouts. Spring AI reports every other 4xx as a
+     * {@link NonTransientAiException} whose message starts with the status code.
+     */
+    static boolean isRouteFailure(Throwable failure) {
+        for (Throwable current = failure; current != null; current = current.getCause()) {
+            if (current instanceof TransientAiException
+                    || current instanceof ResourceAccessException
+                    || current instanceof WebClientRequestException
+                    || current instanceof IOException
+                    || current instanceof TimeoutException) {
+                return true;
+            }
+            if (current instanceof NonTransientAiException) {
+                Matcher matcher = STATUS_PREFIX.matcher(String.valueOf(current.getMessage()).trim());
+                return matcher.find() && isTransientStatus(Integer.parseInt(matcher.group(1)));
+            }
+            if (current instanceof RestClientResponseException response) {
+                return isTransientStatus(response.getStatusCode().value());
+            }
+            if (current instanceof WebClientResponseException response) {
+                return isTransientStatus(response.getStatusCode().value());
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTransientStatus(int status) {
+        return status == 429 || HttpStatusCode.valueOf(status).is5xxServerError();
+    }
+
+    private void submit(ExecutorCompletionService<ChatResponse> completion,
+                        Map<Future<ChatResponse>, Attempt> inFlight,
+                        RouteState route,
+                        Prompt prompt) {
+        Attempt attempt = new Attempt(route, hasToolCallbacks(prompt) ? route.toolModel : route.model);
+        Prompt routed = forRoute(prompt, route);
+        inFlight.put(completion.submit(() -> attempt.run(routed)), attempt);
+    }
+
+    /**
+     * Routes in the preferred tier first (cheap for short prompts, the others for long ones),
+     * each tier ordered by score; the other tier follows as a fallback.
+     */
+    private List<RouteState> rank(Prompt prompt) {
+        String contents = prompt.getContents();
+        boolean shortPrompt = contents == null || contents.length() <= this.properties.shortPromptChars();
+
+        List<RouteState> ranked = new ArrayList<>(this.routes);
+        ranked.sort(Comparator
+                .comparing((RouteState route) -> route.cheap != shortPrompt)
+                .thenComparingDouble(RouteState::score));
+        return ranked;
+    }
+
+    private RouteState acquireNext(Iterator<RouteState> candidates) {
+        while (candidates.hasNext()) {
+            RouteState route = candidates.next();
+            if (route.tryAcquire()) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private Prompt forRoute(Prompt prompt, RouteState route) {
+        if (prompt.getOptions() instanceof OpenAiChatOptions options) {
+            OpenAiChatOptions routed = options.copy();
+            routed.setModel(route.modelName);
+            return new Prompt(prompt.getInstructions(), routed);
+        }
+        if (prompt.getOptions() == null) {
+            return new Prompt(prompt.getInstructions(), OpenAiChatOptions.builder().model(route.modelName).build());
+        }
+        return prompt;
+    }
+
+    private boolean hasToolCallbacks(Prompt prompt) {
+        return prompt.getOptions() instanceof ToolCallingChatOptions options
+                && !CollectionUtils.isEmpty(options.getToolCallbacks());
+    }
+
+    private ModelUnavailableException unavailable() {
+        Duration retryAfter = this.routes.stream()
+                .map(RouteState::remainingOpenTime)
+                .min(Comparator.naturalOrder())
+                .orElse(this.properties.openDuration());
+        return new ModelUnavailableException("all chat routes are open", retryAfter);
+    }
+
+    private static List<RouteTarget> createTargets(OpenAiChatModel baseModel,
+                                                   RoutingProperties properties,
+                                                   String defaultApiKey) {
+        RetryTemplate singleAttempt = RetryTemplate.builder().maxAttempts(1).build();
+        RetryTemplate toolRetry = toolRetryTemplate(properties);
+
+        String defaultModel = baseModel.getDefaultOptions().getModel();
+        if (CollectionUtils.isEmpty(properties.routes())) {
+            return List.of(new RouteTarget("default", defaultModel, false,
+                    delegate(baseModel, null, null, singleAttempt),
+                    delegate(baseModel, null, null, toolRetry)));
+        }
+
+        List<RouteTarget> targets = new ArrayList<>(properties.routes().size());
+        for (RoutingProperties.Route route : properties.routes()) {
+            String modelName = StringUtils.hasText(route.model()) ? route.model().trim() : defaultModel;
+            String name = StringUtils.hasText(route.name()) ? route.name().trim() : modelName;
+
+            OpenAiChatOptions defaults = ((OpenAiChatOptions) baseModel.getDefaultOptions()).copy();
+            defaults.setModel(modelName);
+
+            OpenAiApi api = null;
+            if (StringUtils.hasText(route.baseUrl())) {
+                String apiKey = StringUtils.hasText(route.apiKey()) ? route.apiKey().trim() : defaultApiKey;
+                api = OpenAiApi.builder().baseUrl(route.baseUrl().trim()).apiKey(apiKey).build();
+            }
+            targets.add(new RouteTarget(name, modelName, route.cheap(),
+                    delegate(baseModel, defaults, api, singleAttempt),
+                    delegate(baseModel, defaults, api, toolRetry)));
+        }
+        return targets;
+    }
+
+    /**
+     * The base model retries with backoff, which would hide a failing backend from the breaker
+     * for many seconds, so each route gets its own delegate with an explicit retry template.
+     */
+    private static OpenAiChatModel delegate(OpenAiChatModel baseModel,
+                                            OpenAiChatOptions defaults,
+                                            OpenAiApi api,
+                                            RetryTemplate retryTemplate) {
+        OpenAiChatModel.Builder builder = baseModel.mutate().retryTemplate(retryTemplate);
+        if (defaults != null) {
+            builder.defaultOptions(defaults);
+        }
+        if (api != null) {
+            builder.openAiApi(api);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Retries a tool prompt's failed completion request up to {@code max-attempts} times, only
+     * for route failures, starting at {@code retry-backoff} and doubling up to eight times that.
+     */
+    private static RetryTemplate toolRetryTemplate(RoutingProperties properties) {
+        long backoffMillis = Math.max(1, properties.retryBackoff().toMillis());
+        SimpleRetryPolicy policy = new SimpleRetryPolicy(Math.max(1, properties.maxAttempts())) {
+            @Override
+            public boolean canRetry(RetryContext context) {
+                Throwable last = context.getLastThrowable();
+                return (last == null || isRouteFailure(last)) && super.canRetry(context);
+            }
+        };
+        return RetryTemplate.builder()
+                .customPolicy(policy)
+                .exponentialBackoff(backoffMillis, 2, backoffMillis * 8)
+                .build();
+    }
+
+    public enum BreakerState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    public record RouteStatus(String name,
+                              String model,
+                              boolean cheap,
+                              BreakerState breaker,
+                              Double latencyEwmaMillis,
+                              double errorEwma,
+                              Double p95Millis,
+                              long calls,
+                              long failures) {
+    }
+
+    /**
+     * One backend a call can be routed to; {@code toolChatModel} serves prompts with tool callbacks.
+     */
+    record RouteTarget(String name, String model, boolean cheap, ChatModel chatModel, ChatModel toolChatModel) {
+    }
+
+    /**
+     * One provider call; a call abandoned after another attempt won is not counted as a failure.
+     * Whichever of {@link #run} and {@link #abandon} claims the attempt first owns the route's
+     * slot, so a call cancelled while still queued gives back a half-open trial slot too.
+     */
+    private final class Attempt {
+
+        private final RouteState route;
+        private final ChatModel model;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private volatile boolean abandoned;
+
+        private Attempt(RouteState route, ChatModel model) {
+            this.route = route;
+            this.model = model;
+        }
+
+        private ChatResponse run(Prompt prompt) {
+            if (!this.claimed.compareAndSet(false, true)) {
+                throw new IllegalStateException("chat call abandoned before it started");
+            }
+
+            long startedAt = clock.getAsLong();
+            try {
+                ChatResponse response = this.model.call(prompt);
+                this.route.onSuccess(clock.getAsLong() - startedAt);
+                return response;
+            }
+            catch (RuntimeException ex) {
+                if (this.abandoned) {
+                    this.route.release();
+                }
+                else {
+                    this.route.onError(ex);
+                }
+                throw ex;
+            }
+        }
+
+        private void abandon(Future<ChatResponse> future) {
+            this.abandoned = true;
+            future.cancel(true);
+            if (this.claimed.compareAndSet(false, true)) {
+                this.route.release();
+            }
+        }
+    }
+
+    /**
+     * Token bucket for hedges: every call earns {@code max-hedge-ratio} of a token, a hedge
+     * spends a whole one, and at most {@link #HEDGE_BURST} tokens are saved up.
+     */
+    private static final class HedgeBudget {
+
+        private final double ratio;
+        private double tokens;
+
+        private HedgeBudget(double ratio) {
+            this.ratio = Math.max(0, ratio);
+            this.tokens = this.ratio > 0 ? HEDGE_BURST : 0;
+        }
+
+        private synchronized void onCall() {
+            this.tokens = Math.min(HEDGE_BURST, this.tokens + this.ratio);
+        }
+
+        private synchronized boolean trySpend() {
+            if (this.tokens < 1) {
+                return false;
+            }
+            this.tokens--;
+            return true;
+        }
+
+        private synchronized void refund() {
+            this.tokens = Math.min(HEDGE_BURST, this.tokens + 1);
+        }
+    }
+
+    private final class RouteState {
+
+        private final String name;
+        private final String modelName;
+        private final boolean cheap;
+        private final ChatModel model;
+        private final ChatModel toolModel;
+        private final long[] latencies = new long[LATENCY_WINDOW];
+
+        private int latencyCount;
+        private int latencyIndex;
+        private double latencyEwma = Double.NaN;
+        private double errorEwma;
+        private long calls;
+        private long failures;
+        private int consecutiveFailures;
+        private BreakerState breaker = BreakerState.CLOSED;
+        private long openedAt;
+        private boolean trialInFlight;
+
+        private RouteState(RouteTarget target) {
+            this.name = target.name();
+            this.modelName = target.model();
+            this.cheap = target.cheap();
+            this.model = target.chatModel();
+            this.toolModel = target.toolChatModel();
+        }
+
+        private synchronized boolean tryAcquire() {
+            switch (this.breaker) {
+                case CLOSED -> {
+                    return true;
+                }
+                case OPEN -> {
+                    if (clock.getAsLong() - this.openedAt < properties.openDuration().toNanos()) {
+                        return false;
+                    }
+                    this.breaker = BreakerState.HALF_OPEN;
+                    this.trialInFlight = true;
+                    return true;
+                }
+                default -> {
+                    if (this.trialInFlight) {
+                        return false;
+                    }
+                    this.trialInFlight = true;
+                    return true;
+                }
+            }
+        }
+
+        private synchronized void onSuccess(long latencyNanos) {
+            double alpha = properties.ewmaAlpha();
+            this.calls++;
+            this.latencyEwma = Double.isNaN(this.latencyEwma)
+                    ? latencyNanos
+                    : alpha * latencyNanos + (1 - alpha) * this.latencyEwma;
+            this.errorEwma = (1 - alpha) * this.errorEwma;
+            this.latencies[this.latencyIndex] = latencyNanos;
+            this.latencyIndex = (this.latencyIndex + 1) % LATENCY_WINDOW;
+            this.latencyCount = Math.min(LATENCY_WINDOW, this.latencyCount + 1);
+            this.consecutiveFailures = 0;
+            this.breaker = BreakerState.CLOSED;
+            this.trialInFlight = false;
+        }
+
+        /**
+         * Transient failures count against the route; anything else only frees the trial slot.
+         */
+        private void onError(Throwable failure) {
+            if (isRouteFailure(failure)) {
+                onFailure();
+            }
+            else {
+                release();
+            }
+        }
+
+        private synchronized void onFailure() {
+            double alpha = properties.ewmaAlpha();
+            this.calls++;
+            this.failures++;
+            this.errorEwma = alpha + (1 - alpha) * this.errorEwma;
+            this.consecutiveFailures++;
+            if (this.breaker == BreakerState.HALF_OPEN || this.consecutiveFailures >= properties.failureThreshold()) {
+                this.breaker = BreakerState.OPEN;
+                this.openedAt = clock.getAsLong();
+            }
+            this.trialInFlight = false;
+        }
+
+        /**
+         * Frees a half-open trial slot taken by a call that ended without a verdict.
+         */
+        private synchronized void release() {
+            this.trialInFlight = false;
+        }
+
+        /**
+         * Lower is better. Routes without latency samples are assumed to be as slow as the
+         * initial hedge delay, and the error average inflates that prior like a measured latency.
+         */
+        private synchronized double score() {
+            double latency = Double.isNaN(this.latencyEwma)
+                    ? properties.initialHedgeDelay().toNanos()
+                    : this.latencyEwma;
+            return latency * (1 + properties.errorPenalty() * this.errorEwma);
+        }
+
+        private synchronized long hedgeDelayNanos() {
+            Long p95 = p95Nanos();
+            if (p95 == null) {
+                return properties.initialHedgeDelay().toNanos();
+            }
+            return Math.max(properties.minHedgeDelay().toNanos(), p95);
+        }
+
+        private synchronized Duration remainingOpenTime() {
+            if (this.breaker != BreakerState.OPEN) {
+                return Duration.ZERO;
+            }
+            long remaining = properties.openDuration().toNanos() - (clock.getAsLong() - this.openedAt);
+            return Duration.ofNanos(Math.max(0, remaining));
+        }
+
+        private synchronized RouteStatus status() {
+            Long p95 = p95Nanos();
+            return new RouteStatus(
+                    this.name,
+                    this.modelName,
+                    this.cheap,
+                    this.breaker,
+                    Double.isNaN(this.latencyEwma) ? null : this.latencyEwma / 1_000_000.0,
+                    this.errorEwma,
+                    p95 == null ? null : p95 / 1_000_000.0,
+                    this.calls,
+                    this.failures
+            );
+        }
+
+        private Long p95Nanos() {
+            if (this.latencyCount < MIN_SAMPLES_FOR_P95) {
+                return null;
+            }
+            long[] sorted = Arrays.copyOf(this.latencies, this.latencyCount);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.springai.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.example.springai.config.SpeechProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.ai.audio.tts.TextToSpeechModel;
+import org.springframework.ai.audio.tts.TextToSpeechPrompt;
+import org.springframework.ai.openai.OpenAiAudioSpeechOptions;
+import org.springframework.ai.openai.api.OpenAiAudioApi.SpeechRequest.AudioResponseFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Streams synthesized speech to the client as the provider produces it and keeps a
+ * disk-backed copy keyed by text and voice settings, so repeated phrases are replayed
+ * from file without another provider call.
+ */
+@Service
+public class SpeechSynthesisService {
+
+    private static final Pattern SENTENCE_BOUNDARY = Pattern.compile("(?<=[.!?…])\\s+");
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private final SpeechProperties properties;
+    private final Path cacheDir;
+    private final Duration asyncRequestTimeout;
+
+    public SpeechSynthesisService(SpeechProperties properties,
+                                  @Value("${spring.mvc.async.request-timeout:5m}") Duration asyncRequestTimeout) {
+        this.properties = properties;
+        this.asyncRequestTimeout = asyncRequestTimeout;
+        this.cacheDir = StringUtils.hasText(properties.cacheDir())
+                ? Path.of(properties.cacheDir().trim())
+                : Path.of(System.getProperty("java.io.tmpdir"), "spring-ai-speech-cache");
+    }
+
+    public String cacheKey(String text, String model, String voice, AudioResponseFormat format, Double speed) {
+        return Hashing.sha256Hex(text, model, voice, format.getValue(), speed == null ? null : speed.toString());
+    }
+
+    /**
+     * Returns the cached audio file for the key, or {@code null} on a miss.
+     */
+    public Path findCached(String key, AudioResponseFormat format) {
+        if (!this.properties.cacheEnabled()) {
+            return null;
+        }
+        Path file = cacheFile(key, format);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        }
+        catch (IOException ex) {
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * Hands the file to the servlet container for sendfile transfer when it supports it.
+     * Returns {@code false} when the caller has to write the body itself.
+     */
+    public boolean trySendfile(HttpServletRequest request, Path file, long length) {
+        if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+        request.setAttribute(SENDFILE_START_ATTR, 0L);
+        request.setAttribute(SENDFILE_END_ATTR, length);
+        return true;
+    }
+
+    /**
+     * Starts synthesis and waits for the first audio chunk, so provider errors still reach
+     * the exception handler before the response is committed. The rest of the audio is
+     * written by the returned body as it arrives and stored in the cache once complete.
+     * Provider streams are closed, which cancels the upstream request, when the client goes
+     * away or when the body is not started within the async request timeout.
+     */
+    public StreamingResponseBody stream(TextToSpeechModel model,
+                                        String text,
+                                        OpenAiAudioSpeechOptions options,
+                                        AudioResponseFormat format,
+                                        String key) {
+        List<String> segments = isConcatenable(format)
+                ? splitSentences(text, this.properties.segmentMaxChars())
+                : List.of(text);
+
+        Stream<byte[]> first = synthesize(model, segments.get(0), options);
+        Iterator<byte[]> firstChunks = first.iterator();
+        try {
+            firstChunks.hasNext();
+        }
+        catch (RuntimeException ex) {
+            first.close();
+            throw ex;
+        }
+
+        AtomicBoolean started = new AtomicBoolean();
+        Disposable watchdog = Mono.delay(this.asyncRequestTimeout).subscribe(tick -> {
+            if (started.compareAndSet(false, true)) {
+                first.close();
+            }
+        });
+
+        return outputStream -> {
+            watchdog.dispose();
+            if (!started.compareAndSet(false, true)) {
+                throw new IOException("speech synthesis was abandoned before the response started");
+            }
+
+            Path partial = openPartial(key);
+            try (first; OutputStream cacheOut = partial == null ? OutputStream.nullOutputStream() : Files.newOutputStream(partial)) {
+                write(firstChunks, outputStream, cacheOut);
+                for (String segment : segments.subList(1, segments.size())) {
+                    try (Stream<byte[]> chunks = synthesize(model, segment, options)) {
+                        write(chunks.iterator(), outputStream, cacheOut);
+                    }
+                }
+            }
+            catch (RuntimeException | IOException ex) {
+                deleteQuietly(partial);
+                throw ex;
+            }
+            publish(partial, cacheFile(key, format));
+        };
+    }
+
+    static List<String> splitSentences(String text, int maxChars) {
+        int limit = Math.max(1, maxChars);
+        List<String> segments = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+
+        for (String sentence : SENTENCE_BOUNDARY.split(text.trim())) {
+            for (String piece : hardSplit(sentence, limit)) {
+                if (current.length() > 0 && current.length() + 1 + piece.length() > limit) {
+                    segments.add(current.toString());
+                    current.setLength(0);
+                }
+                if (current.length() > 0) {
+                    current.append(' ');
+                }
+                current.append(piece);
+            }
+        }
+        if (current.length() > 0) {
+            segments.add(current.toString());
+        }
+        return segments.isEmpty() ? List.of(text) : segments;
+    }
+
+    private static List<String> hardSplit(String sentence, int limit) {
+        if (sentence.length() <= limit) {
+            return List.of(sentence);
+        }
+        List<String> pieces = new ArrayList<>();
+        String rest = sentence;
+        while (rest.length() > limit) {
+            int cut = rest.lastIndexOf(' ', limit);
+            if (cut <= 0) {
+                cut = limit;
+            }
+            pieces.add(rest.substring(0, cut).trim());
+            rest = rest.substring(cut).trim();
+        }
+        if (!rest.isEmpty()) {
+            pieces.add(rest);
+        }
+        return pieces;
+    }
+
+    /**
+     * Blocking view of the provider stream; closing it cancels the provider request.
+     */
+    private Stream<byte[]> synthesize(TextToSpeechModel model, String text, OpenAiAudioSpeechOptions options) {
+        return model.stream(new TextToSpeechPrompt(text, options))
+                .map(response -> response.getResult().getOutput())
+                .toStream();
+    }
+
+    private void write(Iterator<byte[]> chunks, OutputStream client, OutputStream cache) throws IOException {
+        while (chunks.hasNext()) {
+            byte[] chunk = chunks.next();
+            client.write(chunk);
+            client.flush();
+            cache.write(chunk);
+        }
+    }
+
+    /**
+     * Containers such as MP3, AAC (ADTS), Ogg/Opus and raw PCM stay playable when
+     * segments are appended back to back; WAV and FLAC carry a single header and do not.
+     */
+    private boolean isConcatenable(AudioResponseFormat format) {
+        return format != AudioResponseFormat.WAV && format != AudioResponseFormat.FLAC;
+    }
+
+    private Path cacheFile(String key, AudioResponseFormat format) {
+        return this.cacheDir.resolve(key + "." + format.getValue());
+    }
+
+    private Path openPartial(String key) throws IOException {
+        if (!this.properties.cacheEnabled()) {
+            return null;
+        }
+        Files.createDirectories(this.cacheDir);
+        return this.cacheDir.resolve(key + "." + UUID.randomUUID() + ".partial");
+    }
+
+    private void publish(Path partial, Path target) throws IOException {
+        if (partial == null) {
+            return;
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        evictOverflow();
+    }
+
+    private synchronized void evictOverflow() throws IOException {
+        long maxBytes = this.properties.cacheMaxSize().toBytes();
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(this.cacheDir)) {
+            files = stream
+                    .filter(path -> !path.getFileName().toString().endsWith(".partial"))
+                    .sorted(Comparator.comparing(this::lastModified))
+                    .toList();
+        }
+
+        long total = 0;
+        for (Path file : files) {
+            total += size(file);
+        }
+        for (Path file : files) {
+            if (total <= maxBytes) {
+                break;
+            }
+            total -= size(file);
+            deleteQuietly(file);
+        }
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        }
+        catch (IOException ex) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private long size(Path file) {
+        try {
+            return Files.size(file);
+        }
+        catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException ignored) {
+            // best effort: a stale file is evicted on a later pass
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.springai.service;
+
+/**
+ * One step of a streamed structured response.
+ *
+ * @param type  {@link #FIELD} for a finished top-level field, {@link #ITEM} for a finished element of a
+ *              top-level array, {@link #RESULT} for the fully converted object
+ * @param path  JSON path of the value, for example {@code title} or {@code steps[2]}; {@code null} for the result
+ * @param value the parsed value
+ */
+public record StructuredEvent(String type, String path, Object value) {
+
+    public static final String FIELD = "field";
+    public static final String ITEM = "item";
+    public static final String RESULT = "result";
+}
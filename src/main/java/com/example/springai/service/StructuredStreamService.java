@@ -0,0 +1,40 @@
+package com.example.springai.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Turns a streamed JSON answer into {@link StructuredEvent}s while tokens are still arriving,
+ * and finishes with the object converted by the same {@link BeanOutputConverter} that
+ * produced the format instructions, so it works for any record type.
+ */
+@Service
+public class StructuredStreamService {
+
+    private final ObjectMapper objectMapper;
+
+    public StructuredStreamService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public <T> Flux<StructuredEvent> stream(Flux<String> content, BeanOutputConverter<T> converter) {
+        return Flux.defer(() -> {
+            IncrementalJsonParser parser = new IncrementalJsonParser(this.objectMapper);
+            StringBuilder text = new StringBuilder();
+
+            return content
+                    .concatMapIterable(chunk -> {
+                        text.append(chunk);
+                        return parser.feed(chunk);
+                    })
+                    .concatWith(Mono.fromCallable(() -> new StructuredEvent(
+                            StructuredEvent.RESULT,
+                            null,
+                            converter.convert(text.toString())
+                    )));
+        });
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.springai.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Splits uncompressed PCM audio (WAV/AIFF/AU) into chunk files on disk, preferring the
+ * quietest point just before each time boundary so words are not cut in half. Chunks are
+ * also capped in bytes, since high sample rates or stereo make a few minutes of PCM larger
+ * than the provider accepts in one request.
+ * Audio is streamed from and to disk; only one energy value per window is kept in memory.
+ */
+final class WavChunker {
+
+    private static final int ENERGY_WINDOW_MILLIS = 50;
+    private static final int WAV_HEADER_BYTES = 44;
+
+    private WavChunker() {
+    }
+
+    /**
+     * Returns the chunk files in playback order, or an empty list when the source is not
+     * a splittable PCM file or is already shorter than one chunk.
+     */
+    static List<Path> split(Path source,
+                            Duration chunkDuration,
+                            long maxChunkBytes,
+                            Duration silenceSearchWindow,
+                            Path targetDir,
+                            String baseName) throws IOException {
+        AudioFileFormat fileFormat;
+        try {
+            fileFormat = AudioSystem.getAudioFileFormat(source.toFile());
+        }
+        catch (UnsupportedAudioFileException ex) {
+            return List.of();
+        }
+
+        AudioFormat format = fileFormat.getFormat();
+        long totalFrames = fileFormat.getFrameLength();
+        float frameRate = format.getFrameRate();
+        if (!isPcm(format) || totalFrames == AudioSystem.NOT_SPECIFIED || frameRate == AudioSystem.NOT_SPECIFIED) {
+            return List.of();
+        }
+
+        long chunkFrames = chunkFrames(chunkDuration, maxChunkBytes, frameRate, format.getFrameSize());
+        if (chunkFrames <= 0 || totalFrames <= chunkFrames) {
+            return List.of();
+        }
+
+        long windowFrames = Math.max(1, framesFor(Duration.ofMillis(ENERGY_WINDOW_MILLIS), frameRate));
+        double[] energies = measureEnergy(source, format, totalFrames, windowFrames);
+        List<Long> cuts = findCuts(totalFrames, chunkFrames, framesFor(silenceSearchWindow, frameRate),
+                windowFrames, energies);
+
+        List<Path> chunks = new ArrayList<>(cuts.size() + 1);
+        try (AudioInputStream input = openStream(source)) {
+            long start = 0;
+            for (int i = 0; i <= cuts.size(); i++) {
+                long end = i < cuts.size() ? cuts.get(i) : totalFrames;
+                Path chunk = targetDir.resolve(String.format("%s-part%03d.wav", baseName, i + 1));
+                // Not closed on purpose: closing the view would close the shared source stream.
+                AudioInputStream part = new AudioInputStream(input, format, end - start);
+                AudioSystem.write(part, AudioFileFormat.Type.WAVE, chunk.toFile());
+                chunks.add(chunk);
+                start = end;
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Frames per chunk: the requested duration, shortened so a written chunk file including
+     * its WAV header fits in {@code maxChunkBytes}.
+     */
+    static long chunkFrames(Duration chunkDuration, long maxChunkBytes, float frameRate, int frameSize) {
+        long byDuration = framesFor(chunkDuration, frameRate);
+        if (maxChunkBytes <= 0 || frameSize <= 0) {
+            return byDuration;
+        }
+        long bySize = (maxChunkBytes - WAV_HEADER_BYTES) / frameSize;
+        return Math.min(byDuration, bySize);
+    }
+
+    /**
+     * Frame offsets at which to cut. Every chunk is at most {@code chunkFrames} long; within
+     * {@code searchFrames} before each boundary the cut moves to the middle of the quietest window.
+     */
+    static List<Long> findCuts(long totalFrames,
+                                       long chunkFrames,
+                                       long searchFrames,
+                                       long windowFrames,
+                                       double[] energies) {
+        List<Long> cuts = new ArrayList<>();
+        long previousCut = 0;
+        long target = chunkFrames;
+
+        while (target < totalFrames) {
+            long cut = target;
+            if (energies != null && searchFrames > 0) {
+                int from = (int) (Math.max(previousCut + windowFrames, target - searchFrames) / windowFrames);
+                int to = (int) Math.min(energies.length - 1, target / windowFrames);
+                int quietest = -1;
+                for (int w = from; w <= to; w++) {
+                    if (quietest < 0 || energies[w] < energies[quietest]) {
+                        quietest = w;
+                    }
+                }
+                if (quietest >= 0) {
+                    cut = Math.min(target, quietest * windowFrames + windowFrames / 2);
+                }
+            }
+
+            cuts.add(cut);
+            previousCut = cut;
+            target = cut + chunkFrames;
+        }
+        return cuts;
+    }
+
+    /**
+     * Mean-square amplitude per window, or {@code null} when the sample layout is not
+     * 16-bit signed PCM; in that case cuts fall exactly on the time boundaries.
+     */
+    private static double[] measureEnergy(Path source,
+                                          AudioFormat format,
+                                          long totalFrames,
+                                          long windowFrames) throws IOException {
+        if (format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED || format.getSampleSizeInBits() != 16) {
+            return null;
+        }
+
+        int frameSize = format.getFrameSize();
+        boolean bigEndian = format.isBigEndian();
+        byte[] buffer = new byte[(int) (windowFrames * frameSize)];
+        double[] energies = new double[(int) ((totalFrames + windowFrames - 1) / windowFrames)];
+        int window = 0;
+
+        try (AudioInputStream input = openStream(source)) {
+            int read;
+            while (window < energies.length && (read = input.readNBytes(buffer, 0, buffer.length)) > 0) {
+                double sum = 0;
+                int samples = read / 2;
+                for (int i = 0; i + 1 < read; i += 2) {
+                    int sample = bigEndian
+                            ? (buffer[i] << 8) | (buffer[i + 1] & 0xff)
+                            : (buffer[i + 1] << 8) | (buffer[i] & 0xff);
+                    sum += (double) sample * sample;
+                }
+                energies[window++] = samples == 0 ? 0 : sum / samples;
+            }
+        }
+        return energies;
+    }
+
+    private static AudioInputStream openStream(Path source) throws IOException {
+        try {
+            return AudioSystem.getAudioInputStream(source.toFile());
+        }
+        catch (UnsupportedAudioFileException ex) {
+            throw new IOException("unsupported audio file: " + source.getFileName(), ex);
+        }
+    }
+
+    private static boolean isPcm(AudioFormat format) {
+        return format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED
+                || format.getEncoding() == AudioFormat.Encoding.PCM_UNSIGNED;
+    }
+
+    private static long framesFor(Duration duration, float frameRate) {
+        return (long) (duration.toMillis() / 1000.0 * frameRate);
+    }
+}
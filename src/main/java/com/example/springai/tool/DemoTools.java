@@ -13,6 +13,7 @@ import org.springframework.util.StringUtils;
 public class DemoTools {
 
     @Tool(description = "Get the current date-time for a timezone.")
+    @ToolPolicy(timeoutMillis = 2000)
     public String currentDateTime(
             @ToolParam(description = "Timezone id like Asia/Tashkent, Europe/Berlin or UTC") String timezone) {
 
@@ -28,11 +29,13 @@ public class DemoTools {
     }
 
     @Tool(description = "Convert distance from kilometers to miles.")
+    @ToolPolicy(cacheable = true, timeoutMillis = 1000)
     public double kilometersToMiles(@ToolParam(description = "Distance in kilometers") double kilometers) {
         return Math.round(kilometers * 0.621371 * 1000.0) / 1000.0;
     }
 
     @Tool(description = "Calculate monthly loan payment with fixed interest.")
+    @ToolPolicy(cacheable = true, timeoutMillis = 1000)
     public double loanMonthlyPayment(
             @ToolParam(description = "Principal amount, for example 10000") double principal,
             @ToolParam(description = "Yearly interest percent, for example 18") double annualInterestPercent,
@@ -0,0 +1,27 @@
+package com.example.springai.tool;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Execution hints for a {@code @Tool} method, read when the tool object is registered
+ * with {@link com.example.springai.service.ParallelToolCallingManager}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ToolPolicy {
+
+    /**
+     * Whether results may be reused for identical arguments. Only for deterministic tools.
+     */
+    boolean cacheable() default false;
+
+    /**
+     * Per-call timeout in milliseconds; zero or less uses {@code app.ai.tools.default-timeout}.
+     */
+    long timeoutMillis() default 0;
+}
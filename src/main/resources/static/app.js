@@ -81,14 +81,34 @@ byId("streamForm").addEventListener("submit", async (event) => {
         }
         const reader = response.body.getReader();
         const decoder = new TextDecoder("utf-8");
+        let buffer = "";
         let content = "";
         while (true) {
             const {value, done} = await reader.read();
             if (done) {
                 break;
             }
-            content += decoder.decode(value, {stream: true});
-            setOutput(outputId, content);
+            buffer += decoder.decode(value, {stream: true});
+            const frames = buffer.split(/\r?\n\r?\n/);
+            buffer = frames.pop();
+            for (const frame of frames) {
+                let eventName = "message";
+                const data = [];
+                for (const line of frame.split(/\r?\n/)) {
+                    if (line.startsWith("event:")) {
+                        eventName = line.slice(6).trim();
+                    } else if (line.startsWith("data:")) {
+                        data.push(line.slice(5));
+                    }
+                }
+                if (eventName === "error") {
+                    throw new Error(data.join("\n"));
+                }
+                if (eventName === "message") {
+                    content += data.join("\n");
+                    setOutput(outputId, content);
+                }
+            }
         }
     } catch (error) {
         setOutput(outputId, error.message, true);
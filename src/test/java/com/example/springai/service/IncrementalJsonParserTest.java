@@ -0,0 +1,97 @@
+package com.example.springai.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.tuple;
+
+class IncrementalJsonParserTest {
+
+    private final IncrementalJsonParser parser = new IncrementalJsonParser(new ObjectMapper());
+
+    @Test
+    void skipsMarkdownFenceBeforeObject() {
+        assertThat(this.parser.feed("```json\n")).isEmpty();
+
+        List<StructuredEvent> events = this.parser.feed("{\"title\":\"Plan\"}");
+
+        assertThat(events).hasSize(1);
+        assertEvent(events.get(0), StructuredEvent.FIELD, "title");
+        assertThat(value(events.get(0)).asText()).isEqualTo("Plan");
+    }
+
+    @Test
+    void emitsFieldsOnlyOnceTokensSplitAcrossChunksAreComplete() {
+        assertThat(this.parser.feed("{\"ti")).isEmpty();
+        assertThat(this.parser.feed("tle\":\"Hel")).isEmpty();
+
+        List<StructuredEvent> afterString = this.parser.feed("lo\",\"count\":1");
+        assertThat(afterString).hasSize(1);
+        assertThat(value(afterString.get(0)).asText()).isEqualTo("Hello");
+
+        List<StructuredEvent> afterNumber = this.parser.feed("2}");
+        assertThat(afterNumber).hasSize(1);
+        assertEvent(afterNumber.get(0), StructuredEvent.FIELD, "count");
+        assertThat(value(afterNumber.get(0)).asInt()).isEqualTo(12);
+    }
+
+    @Test
+    void emitsEachArrayElementWithNestedObjects() {
+        List<StructuredEvent> events = feedAll(
+                "{\"steps\":[{\"name\":\"a\",\"tags\":[\"x\"]},",
+                "{\"name\":\"b\"}",
+                "],\"done\":true}"
+        );
+
+        assertThat(events).extracting(StructuredEvent::type, StructuredEvent::path).containsExactly(
+                tuple(StructuredEvent.ITEM, "steps[0]"),
+                tuple(StructuredEvent.ITEM, "steps[1]"),
+                tuple(StructuredEvent.FIELD, "steps"),
+                tuple(StructuredEvent.FIELD, "done")
+        );
+        assertThat(value(events.get(0)).path("tags").get(0).asText()).isEqualTo("x");
+        assertThat(value(events.get(1)).path("name").asText()).isEqualTo("b");
+        assertThat(value(events.get(2)).size()).isEqualTo(2);
+    }
+
+    @Test
+    void ignoresTextAfterClosingBrace() {
+        List<StructuredEvent> events = this.parser.feed("{\"a\":1}\n```\n");
+
+        assertThat(events).hasSize(1);
+        assertEvent(events.get(0), StructuredEvent.FIELD, "a");
+        assertThat(this.parser.feed("{\"b\":2}")).isEmpty();
+    }
+
+    @Test
+    void stopsWithoutThrowingOnMalformedInput() {
+        List<StructuredEvent> events = this.parser.feed("{\"a\":\"ok\",\"b\":]");
+
+        assertThat(events).hasSize(1);
+        assertEvent(events.get(0), StructuredEvent.FIELD, "a");
+        assertThatCode(() -> assertThat(this.parser.feed(",\"c\":1}")).isEmpty()).doesNotThrowAnyException();
+    }
+
+    private List<StructuredEvent> feedAll(String... chunks) {
+        List<StructuredEvent> events = new ArrayList<>();
+        for (String chunk : chunks) {
+            events.addAll(this.parser.feed(chunk));
+        }
+        return events;
+    }
+
+    private static void assertEvent(StructuredEvent event, String type, String path) {
+        assertThat(event.type()).isEqualTo(type);
+        assertThat(event.path()).isEqualTo(path);
+    }
+
+    private static JsonNode value(StructuredEvent event) {
+        return (JsonNode) event.value();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.springai.service;
+
+import java.nio.charset.StandardCharsets;
+
+import com.example.springai.controller.ApiExceptionHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class ModerationServiceTest {
+
+    private static final String QUOTA_BODY = """
+            {"error":{"message":"You exceeded your current quota","type":"insufficient_quota","code":"insufficient_quota"}}
+            """;
+
+    @Test
+    void insufficientQuotaMapsToTooManyRequests() {
+        MockClientHttpResponse response = new MockClientHttpResponse(
+                QUOTA_BODY.getBytes(StandardCharsets.UTF_8), HttpStatus.TOO_MANY_REQUESTS);
+
+        NonTransientAiException ex = catchThrowableOfType(NonTransientAiException.class,
+                () -> ModerationService.throwProviderError(response));
+
+        assertThat(ex).isNotNull();
+        assertThat(ex.getMessage()).startsWith("429 - ");
+
+        ResponseEntity<ApiExceptionHandler.ApiError> mapped = new ApiExceptionHandler()
+                .handleNonTransientAiException(ex, new MockHttpServletRequest("POST", "/api/ai/moderation/batch"));
+        assertThat(mapped.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(mapped.getBody().code()).isEqualTo("INSUFFICIENT_QUOTA");
+    }
+
+    @Test
+    void clientErrorsAreNonTransientAndServerErrorsTransient() {
+        assertThatThrownBy(() -> ModerationService.throwProviderError(
+                new MockClientHttpResponse(new byte[0], HttpStatus.UNAUTHORIZED)))
+                .isInstanceOf(NonTransientAiException.class);
+        assertThatThrownBy(() -> ModerationService.throwProviderError(
+                new MockClientHttpResponse(new byte[0], HttpStatus.BAD_GATEWAY)))
+                .isInstanceOf(TransientAiException.class);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.springai.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.example.springai.config.ToolProperties;
+import com.example.springai.tool.ToolPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelToolCallingManagerTest {
+
+    private final CountingTools tools = new CountingTools();
+    private final List<ParallelToolCallingManager> managers = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        this.managers.forEach(ParallelToolCallingManager::shutdown);
+    }
+
+    @Test
+    void blankArgumentsRunOnceAndReplayForEveryCall() {
+        ParallelToolCallingManager manager = manager(4);
+
+        List<ToolResponseMessage.ToolResponse> responses = execute(manager,
+                toolCall("1", "ping", ""),
+                toolCall("2", "ping", "{}"));
+
+        assertThat(this.tools.pings.get()).isEqualTo(1);
+        assertThat(responses).extracting(ToolResponseMessage.ToolResponse::id).containsExactly("1", "2");
+        assertThat(responses).extracting(ToolResponseMessage.ToolResponse::responseData)
+                .containsOnly("\"pong\"");
+    }
+
+    @Test
+    void reorderedArgumentsShareOneExecution() {
+        ParallelToolCallingManager manager = manager(4);
+
+        List<ToolResponseMessage.ToolResponse> responses = execute(manager,
+                toolCall("1", "subtract", "{\"a\":5,\"b\":2}"),
+                toolCall("2", "subtract", "{\"b\":2,\"a\":5}"),
+                toolCall("3", "subtract", "{\"a\":2,\"b\":5}"));
+
+        assertThat(this.tools.subtractions.get()).isEqualTo(2);
+        assertThat(responses).extracting(ToolResponseMessage.ToolResponse::responseData)
+                .containsExactly("3", "3", "-3");
+    }
+
+    @Test
+    void cacheableToolIsServedFromCacheOnLaterTurns() {
+        ParallelToolCallingManager manager = manager(4);
+
+        execute(manager, toolCall("1", "subtract", "{\"a\":5,\"b\":2}"));
+        List<ToolResponseMessage.ToolResponse> second = execute(manager,
+                toolCall("2", "subtract", "{\"b\":2,\"a\":5}"));
+
+        assertThat(this.tools.subtractions.get()).isEqualTo(1);
+        assertThat(second).extracting(ToolResponseMessage.ToolResponse::responseData).containsExactly("3");
+        ParallelToolCallingManager.ToolStatsSnapshot stats = manager.statistics().get("subtract");
+        assertThat(stats.calls()).isEqualTo(1);
+        assertThat(stats.cacheHits()).isEqualTo(1);
+    }
+
+    @Test
+    void timeoutStartsWhenTheCallRunsNotWhenItIsQueued() {
+        ParallelToolCallingManager manager = manager(1);
+
+        List<ToolResponseMessage.ToolResponse> responses = execute(manager,
+                toolCall("1", "slow", "{}"),
+                toolCall("2", "quick", "{}"));
+
+        assertThat(responses).extracting(ToolResponseMessage.ToolResponse::responseData)
+                .containsExactly("\"slow\"", "\"quick\"");
+        ParallelToolCallingManager.ToolStatsSnapshot quick = manager.statistics().get("quick");
+        assertThat(quick.timeouts()).isZero();
+        assertThat(quick.avgQueueMillis()).isGreaterThanOrEqualTo(CountingTools.SLOW_MILLIS / 2.0);
+        assertThat(quick.avgMillis()).isLessThan(CountingTools.QUICK_TIMEOUT_MILLIS);
+    }
+
+    private ParallelToolCallingManager manager(int parallelism) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        ParallelToolCallingManager manager = new ParallelToolCallingManager(
+                new ToolProperties(Duration.ofSeconds(10), Duration.ofSeconds(30), parallelism, 100,
+                        Duration.ofMinutes(10)),
+                new ObjectMapper(),
+                beanFactory.getBeanProvider(ToolCallbackResolver.class),
+                beanFactory.getBeanProvider(ToolExecutionExceptionProcessor.class),
+                beanFactory.getBeanProvider(ObservationRegistry.class));
+        this.managers.add(manager);
+        return manager;
+    }
+
+    private List<ToolResponseMessage.ToolResponse> execute(ParallelToolCallingManager manager,
+                                                           AssistantMessage.ToolCall... toolCalls) {
+        ToolCallingChatOptions options = ToolCallingChatOptions.builder()
+                .toolCallbacks(manager.register(this.tools))
+                .build();
+        Prompt prompt = new Prompt(List.of(new UserMessage("hi")), options);
+        AssistantMessage request = new AssistantMessage("", Map.of(), List.of(toolCalls));
+
+        ToolExecutionResult result = manager.executeToolCalls(prompt,
+                new ChatResponse(List.of(new Generation(request))));
+
+        List<Message> history = result.conversationHistory();
+        return ((ToolResponseMessage) history.get(history.size() - 1)).getResponses();
+    }
+
+    private static AssistantMessage.ToolCall toolCall(String id, String name, String arguments) {
+        return new AssistantMessage.ToolCall(id, "function", name, arguments);
+    }
+
+    public static class CountingTools {
+
+        static final long SLOW_MILLIS = 300;
+        static final long QUICK_TIMEOUT_MILLIS = 100;
+
+        private final AtomicInteger pings = new AtomicInteger();
+        private final AtomicInteger subtractions = new AtomicInteger();
+
+        @Tool(description = "Answers pong.")
+        public String ping() {
+            this.pings.incrementAndGet();
+            return "pong";
+        }
+
+        @Tool(description = "Subtracts b from a.")
+        @ToolPolicy(cacheable = true)
+        public int subtract(int a, int b) {
+            this.subtractions.incrementAndGet();
+            return a - b;
+        }
+
+        @Tool(description = "Takes a while.")
+        public String slow() throws InterruptedException {
+            Thread.sleep(SLOW_MILLIS);
+            return "slow";
+        }
+
+        @Tool(description = "Returns at once.")
+        @ToolPolicy(timeoutMillis = QUICK_TIMEOUT_MILLIS)
+        public String quick() {
+            return "quick";
+        }
+    }
+}
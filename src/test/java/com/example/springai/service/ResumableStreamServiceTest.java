@@ -0,0 +1,120 @@
+package com.example.springai.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import com.example.springai.config.StreamProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResumableStreamServiceTest {
+
+    private static final Duration NEVER = Duration.ofHours(1);
+    private static final Duration WAIT = Duration.ofSeconds(5);
+    private static final Function<Throwable, String> ERROR_MESSAGE = ex -> "failed: " + ex.getMessage();
+
+    @Test
+    void coalescesDeltasBySize() {
+        ResumableStreamService service = new ResumableStreamService(properties(NEVER, 4, 16, NEVER, 8));
+
+        List<ServerSentEvent<String>> events = collect(service.start(Flux.just("ab", "cd", "e"), ERROR_MESSAGE));
+
+        assertThat(events).extracting(ServerSentEvent::data).containsExactly("abcd", "e", "[DONE]");
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly(null, null, ResumableStreamService.DONE_EVENT);
+        assertThat(events).extracting(ServerSentEvent::id)
+                .allSatisfy(id -> assertThat(id).startsWith(streamId(events) + ":"));
+    }
+
+    @Test
+    void coalescesDeltasByInterval() {
+        ResumableStreamService service = new ResumableStreamService(
+                properties(Duration.ofMillis(20), 1000, 16, NEVER, 8));
+        Flux<String> deltas = Flux.concat(
+                Flux.just("a", "b"),
+                Mono.delay(Duration.ofMillis(300)).thenMany(Flux.just("c")));
+
+        List<ServerSentEvent<String>> events = collect(service.start(deltas, ERROR_MESSAGE));
+
+        assertThat(events).extracting(ServerSentEvent::data).containsExactly("ab", "c", "[DONE]");
+    }
+
+    @Test
+    void resumeReplaysOnlyFramesAfterLastEventId() {
+        ResumableStreamService service = new ResumableStreamService(properties(NEVER, 4, 16, NEVER, 8));
+        String streamId = streamId(collect(service.start(Flux.just("aaaa", "bbbb", "cccc"), ERROR_MESSAGE)));
+
+        List<ServerSentEvent<String>> resumed = collect(service.resume(streamId + ":2"));
+
+        assertThat(resumed).extracting(ServerSentEvent::id).containsExactly(streamId + ":3", streamId + ":4");
+        assertThat(resumed).extracting(ServerSentEvent::data).containsExactly("cccc", "[DONE]");
+        assertThat(service.metrics(streamId).resumes()).isEqualTo(1);
+    }
+
+    @Test
+    void resumeBehindTheReplayBufferStartsWithGapEvent() {
+        ResumableStreamService service = new ResumableStreamService(properties(NEVER, 4, 2, NEVER, 8));
+        String streamId = streamId(collect(service.start(Flux.just("aaaa", "bbbb", "cccc", "dddd"), ERROR_MESSAGE)));
+
+        List<ServerSentEvent<String>> resumed = collect(service.resume(streamId + ":1"));
+
+        assertThat(resumed).extracting(ServerSentEvent::event)
+                .containsExactly(ResumableStreamService.GAP_EVENT, null, ResumableStreamService.DONE_EVENT);
+        assertThat(resumed.get(0).data()).isEqualTo("frames 2..3 are no longer buffered");
+        assertThat(resumed.get(1).id()).isEqualTo(streamId + ":4");
+    }
+
+    @Test
+    void lifetimeLimitCancelsGenerationAndEndsWithOneErrorFrame() {
+        ResumableStreamService service = new ResumableStreamService(
+                properties(Duration.ofMillis(20), 1000, 16, Duration.ofMillis(100), 8));
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Flux<String> hung = Flux.concat(Flux.just("partial"), Flux.<String>never())
+                .doOnCancel(() -> cancelled.set(true));
+
+        List<ServerSentEvent<String>> events = collect(service.start(hung, ERROR_MESSAGE));
+        String streamId = streamId(events);
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly(null, ResumableStreamService.ERROR_EVENT);
+        assertThat(events.get(1).data()).startsWith("failed: stream exceeded");
+        assertThat(cancelled).isTrue();
+
+        List<ServerSentEvent<String>> replayed = collect(service.resume(streamId + ":0"));
+        assertThat(replayed).filteredOn(event -> ResumableStreamService.ERROR_EVENT.equals(event.event())).hasSize(1);
+        assertThat(service.metrics(streamId).frames()).isEqualTo(2);
+        assertThat(service.summary().activeStreams()).isZero();
+    }
+
+    @Test
+    void refusesNewStreamsAtTheLiveLimit() {
+        ResumableStreamService service = new ResumableStreamService(properties(NEVER, 4, 16, NEVER, 1));
+
+        assertThat(service.start(Flux.never(), ERROR_MESSAGE)).isNotNull();
+        assertThat(service.start(Flux.just("x"), ERROR_MESSAGE)).isNull();
+        assertThat(service.summary().activeStreams()).isEqualTo(1);
+    }
+
+    private static StreamProperties properties(Duration coalesceInterval,
+                                               int coalesceMaxChars,
+                                               int replayFrames,
+                                               Duration maxLifetime,
+                                               int maxLiveStreams) {
+        return new StreamProperties(coalesceInterval, coalesceMaxChars, NEVER, replayFrames, Duration.ofMinutes(1),
+                maxLifetime, maxLiveStreams);
+    }
+
+    private static List<ServerSentEvent<String>> collect(Flux<ServerSentEvent<String>> events) {
+        assertThat(events).isNotNull();
+        return events.collectList().block(WAIT);
+    }
+
+    private static String streamId(List<ServerSentEvent<String>> events) {
+        String id = events.get(0).id();
+        return id.substring(0, id.lastIndexOf(':'));
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.springai.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.example.springai.config.RoutingProperties;
+import com.example.springai.controller.ApiExceptionHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoutingChatModelTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<RoutingChatModel> routers = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        this.routers.forEach(RoutingChatModel::shutdown);
+    }
+
+    @Test
+    void hedgeOnNextRouteWinsWhenFirstRouteIsSlow() {
+        StubModel slow = new StubModel(prompt -> {
+            sleep(10_000);
+            return response("slow");
+        });
+        StubModel fast = new StubModel(prompt -> response("fast"));
+        RoutingChatModel router = router(properties(Duration.ofMillis(50), 2, 5), slow, fast);
+
+        assertThat(text(router.call(new Prompt("hi")))).isEqualTo("fast");
+        assertThat(slow.calls.get()).isEqualTo(1);
+        assertThat(fast.calls.get()).isEqualTo(1);
+        assertThat(status(router, "route0").failures()).isZero();
+        assertThat(status(router, "route0").breaker()).isEqualTo(RoutingChatModel.BreakerState.CLOSED);
+    }
+
+    @Test
+    void singleSlowRouteIsNotHedgedWithItself() {
+        StubModel slow = new StubModel(prompt -> {
+            sleep(200);
+            return response("slow");
+        });
+        RoutingChatModel router = router(properties(Duration.ofMillis(20), 2, 5), slow);
+
+        assertThat(text(router.call(new Prompt("hi")))).isEqualTo("slow");
+        assertThat(slow.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void exhaustedHedgeBudgetWaitsForFirstRoute() {
+        StubModel slow = new StubModel(prompt -> {
+            sleep(200);
+            return response("slow");
+        });
+        StubModel fast = new StubModel(prompt -> response("fast"));
+        RoutingChatModel router = router(
+                properties(Duration.ofMillis(20), 2, 5, Duration.ofMillis(10), 0.0), slow, fast);
+
+        assertThat(text(router.call(new Prompt("hi")))).isEqualTo("slow");
+        assertThat(fast.calls.get()).isZero();
+    }
+
+    @Test
+    void transientFailureFailsOverToNextRoute() {
+        StubModel failing = new StubModel(prompt -> {
+            throw new TransientAiException("503 - unavailable");
+        });
+        StubModel healthy = new StubModel(prompt -> response("ok"));
+        RoutingChatModel router = router(properties(Duration.ofSeconds(10), 2, 5), failing, healthy);
+
+        assertThat(text(router.call(new Prompt("hi")))).isEqualTo("ok");
+        RoutingChatModel.RouteStatus failed = status(router, "route0");
+        assertThat(failed.failures()).isEqualTo(1);
+        assertThat(failed.errorEwma()).isPositive();
+    }
+
+    @Test
+    void retryOnTheSameRouteWaitsForBackoff() {
+        AtomicInteger failuresLeft = new AtomicInteger(1);
+        StubModel flaky = new StubModel(prompt -> {
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new NonTransientAiException("429 - rate limited");
+            }
+            return response("ok");
+        });
+        RoutingChatModel router = router(
+                properties(Duration.ofSeconds(10), 2, 5, Duration.ofMillis(150), 1.0), flaky);
+
+        long startedAt = System.nanoTime();
+        assertThat(text(router.call(new Prompt("hi")))).isEqualTo("ok");
+
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isGreaterThanOrEqualTo(Duration.ofMillis(150));
+        assertThat(flaky.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void toolPromptGoesToRetryingDelegateOnce() {
+        StubModel plain = new StubModel(prompt -> response("plain"));
+        StubModel withRetry = new StubModel(prompt -> {
+            throw new TransientAiException("503 - unavailable");
+        });
+        RoutingChatModel router = new RoutingChatModel(properties(Duration.ofMillis(20), 2, 5), null,
+                List.of(new RoutingChatModel.RouteTarget("route0", "model-0", false, plain, withRetry)),
+                this.clock::get);
+        this.routers.add(router);
+
+        ToolCallback tool = new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return ToolDefinition.builder().name("noop").description("noop").inputSchema("{}").build();
+            }
+
+            @Override
+            public String call(String toolInput) {
+                return "ok";
+            }
+        };
+        Prompt prompt = new Prompt("hi", ToolCallingChatOptions.builder().toolCallbacks(tool).build());
+
+        assertThatThrownBy(() -> router.call(prompt)).isInstanceOf(TransientAiException.class);
+        assertThat(withRetry.calls.get()).isEqualTo(1);
+        assertThat(plain.calls.get()).isZero();
+    }
+
+    @Test
+    void clientErrorIsRethrownWithoutFailoverOrPenalty() {
+        StubModel rejecting = new StubModel(prompt -> {
+            throw new NonTransientAiException("400 - context_length_exceeded");
+        });
+        StubModel other = new StubModel(prompt -> response("ok"));
+        RoutingChatModel router = router(properties(Duration.ofSeconds(10), 2, 1), rejecting, other);
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> router.call(new Prompt("hi"))).isInstanceOf(NonTransientAiException.class);
+        }
+        assertThat(other.calls.get()).isZero();
+        assertThat(status(router, "route0").failures()).isZero();
+        assertThat(status(router, "route0").breaker()).isEqualTo(RoutingChatModel.BreakerState.CLOSED);
+    }
+
+    @Test
+    void breakerOpensThenLetsOneTrialThroughAndCloses() {
+        AtomicBoolean healthy = new AtomicBoolean(false);
+        StubModel model = new StubModel(prompt -> {
+            if (!healthy.get()) {
+                throw new TransientAiException("502 - bad gateway");
+            }
+            return response("ok");
+        });
+        RoutingChatModel router = router(properties(Duration.ofSeconds(10), 1, 2), model);
+
+        assertThatThrownBy(() -> router.call(new Prompt("hi"))).isInstanceOf(TransientAiException.class);
+        assertThatThrownBy(() -> router.call(new Prompt("hi"))).isInstanceOf(TransientAiException.class);
+        assertThat(status(router, "route0").breaker()).isEqualTo(RoutingChatModel.BreakerState.OPEN);
+
+        assertThatThrownBy(() -> router.call(new Prompt("hi"))).isInstanceOf(ModelUnavailableException.class);
+        assertThat(model.calls.get()).isEqualTo(2);
+
+        this.clock.addAndGet(OPEN_DURATION.toNanos());
+        assertThatThrownBy(() -> router.call(new Prompt("hi"))).isInstanceOf(TransientAiException.class);
+        assertThat(status(router, "route0").breaker()).isEqualTo(RoutingChatModel.BreakerState.OPEN);
+
+        this.clock.addAndGet(OPEN_DURATION.toNanos());
+        healthy.set(true);
+        assertThat(text(router.call(new Prompt("hi")))).isEqualTo("ok");
+        assertThat(status(router, "route0").breaker()).isEqualTo(RoutingChatModel.BreakerState.CLOSED);
+    }
+
+    @Test
+    void allRoutesOpenAnswers503WithRetryAfter() {
+        StubModel model = new StubModel(prompt -> {
+            throw new TransientAiException("500 - internal error");
+        });
+        RoutingChatModel router = router(properties(Duration.ofSeconds(10), 1, 1), model);
+        assertThatThrownBy(() -> router.call(new Prompt("hi"))).isInstanceOf(TransientAiException.class);
+
+        this.clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        ModelUnavailableException unavailable = null;
+        try {
+            router.call(new Prompt("hi"));
+        }
+        catch (ModelUnavailableException ex) {
+            unavailable = ex;
+        }
+
+        assertThat(unavailable).isNotNull();
+        assertThat(unavailable.getRetryAfter()).isEqualTo(Duration.ofSeconds(20));
+
+        ResponseEntity<ApiExceptionHandler.ApiError> response = new ApiExceptionHandler()
+                .handleModelUnavailableException(unavailable, new MockHttpServletRequest("POST", "/api/chat"));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("20");
+        assertThat(response.getBody().code()).isEqualTo("MODEL_UNAVAILABLE");
+    }
+
+    @Test
+    void routeThatOnlyFailedRanksBehindUntriedRoute() {
+        StubModel dead = new StubModel(prompt -> {
+            throw new TransientAiException("503 - unavailable");
+        });
+        StubModel untried = new StubModel(prompt -> response("ok"));
+        RoutingChatModel router = router(properties(Duration.ofSeconds(10), 1, 5), dead, untried);
+
+        assertThatThrownBy(() -> router.call(new Prompt("hi"))).isInstanceOf(TransientAiException.class);
+        assertThat(text(router.call(new Prompt("hi")))).isEqualTo("ok");
+        assertThat(dead.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void p95IsReportedOnceEnoughSamplesExist() {
+        AtomicInteger latencyMillis = new AtomicInteger();
+        StubModel model = new StubModel(prompt -> {
+            this.clock.addAndGet(Duration.ofMillis(latencyMillis.incrementAndGet()).toNanos());
+            return response("ok");
+        });
+        RoutingChatModel router = router(properties(Duration.ofSeconds(10), 1, 5), model);
+
+        for (int i = 0; i < 19; i++) {
+            router.call(new Prompt("hi"));
+        }
+        assertThat(status(router, "route0").p95Millis()).isNull();
+
+        router.call(new Prompt("hi"));
+        assertThat(status(router, "route0").p95Millis()).isEqualTo(19.0);
+    }
+
+    private RoutingChatModel router(RoutingProperties properties, StubModel... models) {
+        List<RoutingChatModel.RouteTarget> targets = new ArrayList<>();
+        for (int i = 0; i < models.length; i++) {
+            targets.add(new RoutingChatModel.RouteTarget("route" + i, "model-" + i, false, models[i], models[i]));
+        }
+        RoutingChatModel router = new RoutingChatModel(properties, null, targets, this.clock::get);
+        this.routers.add(router);
+        return router;
+    }
+
+    private static RoutingProperties properties(Duration initialHedgeDelay, int maxAttempts, int failureThreshold) {
+        return properties(initialHedgeDelay, maxAttempts, failureThreshold, Duration.ofMillis(10), 1.0);
+    }
+
+    private static RoutingProperties properties(Duration initialHedgeDelay,
+                                                int maxAttempts,
+                                                int failureThreshold,
+                                                Duration retryBackoff,
+                                                double maxHedgeRatio) {
+        return new RoutingProperties(true, List.of(), 400, initialHedgeDelay, Duration.ofMillis(10), maxAttempts,
+                retryBackoff, maxHedgeRatio, 0.2, 4.0, failureThreshold, OPEN_DURATION, 8);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("cancelled", ex);
+        }
+    }
+
+    private static RoutingChatModel.RouteStatus status(RoutingChatModel router, String name) {
+        return router.routeStatuses().stream()
+                .filter(status -> status.name().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    private static String text(ChatResponse response) {
+        return response.getResult().getOutput().getText();
+    }
+
+    private static final class StubModel implements ChatModel {
+
+        private final Function<Prompt, ChatResponse> answer;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private StubModel(Function<Prompt, ChatResponse> answer) {
+            this.answer = answer;
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            this.calls.incrementAndGet();
+            return this.answer.apply(prompt);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.springai.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WavChunkerTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void chunkFramesIsCappedBySizeForStereo44kHz() {
+        long frames = WavChunker.chunkFrames(Duration.ofMinutes(5), 25 * MB, 44_100f, 4);
+
+        assertThat(frames).isLessThan(5 * 60 * 44_100L);
+        assertThat(frames * 4 + 44).isLessThanOrEqualTo(25 * MB);
+    }
+
+    @Test
+    void chunkFramesKeepsDurationWhenItFits() {
+        long frames = WavChunker.chunkFrames(Duration.ofMinutes(5), 25 * MB, 16_000f, 2);
+
+        assertThat(frames).isEqualTo(5 * 60 * 16_000L);
+    }
+
+    @Test
+    void findCutsPrefersQuietestWindowBeforeBoundary() {
+        double[] energies = {9, 9, 9, 9, 9, 9, 1, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9};
+
+        List<Long> cuts = WavChunker.findCuts(200, 80, 30, 10, energies);
+
+        assertThat(cuts.get(0)).isEqualTo(65L);
+        assertThat(cuts).allSatisfy(cut -> assertThat(cut).isLessThan(200L));
+        assertGaps(cuts, 200, 80);
+    }
+
+    @Test
+    void findCutsFallsOnBoundariesWithoutEnergy() {
+        assertThat(WavChunker.findCuts(250, 100, 30, 10, null)).containsExactly(100L, 200L);
+    }
+
+    @Test
+    void splitWritesChunksUnderByteLimit() throws Exception {
+        AudioFormat format = new AudioFormat(8_000f, 16, 2, true, false);
+        Path source = writeWav(format, 8_000 * 10);
+        long maxChunkBytes = 64 * 1024;
+
+        List<Path> chunks = WavChunker.split(source, Duration.ofMinutes(5), maxChunkBytes,
+                Duration.ofMillis(500), this.tempDir, "chunk");
+
+        assertThat(chunks).hasSizeGreaterThan(1);
+        long totalFrames = 0;
+        for (Path chunk : chunks) {
+            assertThat(Files.size(chunk)).isLessThanOrEqualTo(maxChunkBytes);
+            totalFrames += frameLength(chunk);
+        }
+        assertThat(totalFrames).isEqualTo(8_000 * 10);
+    }
+
+    @Test
+    void splitSkipsNonPcmFiles() throws Exception {
+        Path source = Files.writeString(this.tempDir.resolve("audio.mp3"), "not audio");
+
+        assertThat(WavChunker.split(source, Duration.ofMinutes(5), 25 * MB, Duration.ofSeconds(3),
+                this.tempDir, "chunk")).isEmpty();
+    }
+
+    private static void assertGaps(List<Long> cuts, long totalFrames, long chunkFrames) {
+        long previous = 0;
+        for (long cut : cuts) {
+            assertThat(cut - previous).isPositive().isLessThanOrEqualTo(chunkFrames);
+            previous = cut;
+        }
+        assertThat(totalFrames - previous).isPositive().isLessThanOrEqualTo(chunkFrames);
+    }
+
+    private Path writeWav(AudioFormat format, int frames) throws IOException {
+        byte[] data = new byte[frames * format.getFrameSize()];
+        for (int frame = 0; frame < frames; frame++) {
+            // A 440Hz tone with a silent 100ms gap every second.
+            boolean silent = frame % 8_000 < 800;
+            short sample = silent ? 0 : (short) (8_000 * Math.sin(2 * Math.PI * 440 * frame / 8_000.0));
+            for (int channel = 0; channel < format.getChannels(); channel++) {
+                int offset = frame * format.getFrameSize() + channel * 2;
+                data[offset] = (byte) sample;
+                data[offset + 1] = (byte) (sample >> 8);
+            }
+        }
+
+        Path path = this.tempDir.resolve("source.wav");
+        try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(data), format, frames)) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, path.toFile());
+        }
+        return path;
+    }
+
+    private static long frameLength(Path wav) throws IOException, UnsupportedAudioFileException {
+        return AudioSystem.getAudioFileFormat(wav.toFile()).getFrameLength();
+    }
+}